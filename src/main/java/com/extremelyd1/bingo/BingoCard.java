@@ -2,6 +2,7 @@ package com.extremelyd1.bingo;
 
 import com.extremelyd1.bingo.item.BingoItem;
 import com.extremelyd1.game.team.PlayerTeam;
+import com.extremelyd1.game.team.TeamManager;
 import org.bukkit.Material;
 
 import java.util.ArrayList;
@@ -14,9 +15,14 @@ import java.util.Random;
 public class BingoCard {
 
     /**
-     * The size of the board
+     * The number of materials that exist, used to size the tables indexed by material ordinal
      */
-    public final static int BOARD_SIZE = 5;
+    private final static int NUM_MATERIALS = Material.values().length;
+
+    /**
+     * The shape of the board of this card
+     */
+    private final BoardShape shape;
 
     /**
      * A 2D array of bingo items
@@ -28,6 +34,25 @@ public class BingoCard {
      */
     private final int completionsToLock;
 
+    /**
+     * For each team ID, the bitmask of cells that the team has collected
+     */
+    private final long[] collectedMasks;
+    /**
+     * The bitmask of cells that are locked due to their number of completions
+     */
+    private long lockedMask;
+
+    /**
+     * A bitset indexed by material ordinal with a bit set for each material that is on this card
+     */
+    private final long[] onCardMaterials;
+    /**
+     * A table indexed by material ordinal that holds the index of the cell with that material,
+     * only valid for materials that are on this card
+     */
+    private final byte[] cellIndexByOrdinal;
+
     /**
      * The corresponding inventory that holds ItemStacks of this bingo card
      */
@@ -37,31 +62,43 @@ public class BingoCard {
      * Creates a bingo card by randomly picking from the list of materials given and locks each item after
      * the given number of completions
      * @param materials The list of materials to pick from
+     * @param shape The shape of the board of this card
      * @param completionsToLock The number of completions for an item to lock it for the remaining teams
      */
-    public BingoCard(List<Material> materials, int completionsToLock) {
-        if (materials.size() < 25) {
-            throw new IllegalArgumentException("The size of the given material list is less than 25");
+    public BingoCard(List<Material> materials, BoardShape shape, int completionsToLock) {
+        if (materials.size() < shape.getNumCells()) {
+            throw new IllegalArgumentException("The size of the given material list is less than " + shape.getNumCells());
         }
 
+        this.shape = shape;
         this.completionsToLock = completionsToLock;
+        this.collectedMasks = new long[TeamManager.MAX_TEAMS];
+        this.lockedMask = 0L;
+
+        this.onCardMaterials = new long[(NUM_MATERIALS + 63) >>> 6];
+        this.cellIndexByOrdinal = new byte[NUM_MATERIALS];
 
         List<Material> materialsLeft = new ArrayList<>(materials);
-        bingoItems = new BingoItem[BOARD_SIZE][BOARD_SIZE];
+        int size = shape.getSize();
+        bingoItems = new BingoItem[size][size];
 
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            for (int x = 0; x < BOARD_SIZE; x++) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
                 Material material = materialsLeft.get(
                         new Random().nextInt(materialsLeft.size())
                 );
                 BingoItem bingoItem = new BingoItem(material);
                 this.bingoItems[y][x] = bingoItem;
 
+                int ordinal = material.ordinal();
+                this.onCardMaterials[ordinal >>> 6] |= 1L << ordinal;
+                this.cellIndexByOrdinal[ordinal] = (byte) shape.getCellIndex(x, y);
+
                 materialsLeft.remove(material);
             }
         }
 
-        bingoCardInventory = new BingoCardInventory(bingoItems);
+        bingoCardInventory = new BingoCardInventory(this);
     }
 
     /**
@@ -71,24 +108,26 @@ public class BingoCard {
      * @return True if the material can be collected, false otherwise
      */
     public boolean checkMaterialCollection(Material material, PlayerTeam team) {
-        BingoItem bingoItem = getItemByMaterial(material);
+        int cellIndex = getCellIndex(material);
         // If the given material is not on the card
-        if (bingoItem == null) {
+        if (cellIndex == -1) {
             return false;
         }
 
+        long cellBit = 1L << cellIndex;
+
         // If the given team has already collected this item
-        if (bingoItem.hasCollected(team)) {
+        if ((collectedMasks[team.getId()] & cellBit) != 0) {
             return false;
         }
 
         // If there is a limit on how many completions an item can have and this limit is exceeded
-        if (isItemLocked(bingoItem)) {
+        if ((lockedMask & cellBit) != 0) {
             return false;
         }
 
         // Otherwise we register the item as collected for the given team
-        addItemCollected(material, team);
+        addItemCollected(cellIndex, team);
 
         return true;
     }
@@ -114,48 +153,56 @@ public class BingoCard {
      * is less than the number of completions to lock
      */
     public boolean isItemLocked(Material material) {
-        BingoItem bingoItem = getItemByMaterial(material);
-        if (bingoItem == null) {
+        int cellIndex = getCellIndex(material);
+        if (cellIndex == -1) {
             throw new IllegalArgumentException("No bingo item with the given material exists");
         }
 
-        return isItemLocked(bingoItem);
+        return (lockedMask & (1L << cellIndex)) != 0;
     }
 
     /**
-     * Gets the bingo item with the given material
+     * Checks whether the given material is on this bingo card
+     * @param material The material to check for
+     * @return True if there is a cell with the given material, false otherwise
+     */
+    public boolean containsMaterial(Material material) {
+        int ordinal = material.ordinal();
+
+        return (onCardMaterials[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Gets the index of the cell with the given material, where the index of a cell at (x, y) is
+     * y * size + x
      * @param material The material to search for
-     * @return The bingo item with the given material or null if no such item exists
+     * @return The index of the cell with the given material or -1 if no such cell exists
      */
-    private BingoItem getItemByMaterial(Material material) {
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            for (int x = 0; x < BOARD_SIZE; x++) {
-                if (bingoItems[y][x].getMaterial().equals(material)) {
-                    return bingoItems[y][x];
-                }
-            }
+    public int getCellIndex(Material material) {
+        if (!containsMaterial(material)) {
+            return -1;
         }
 
-        return null;
+        return cellIndexByOrdinal[material.ordinal()];
     }
 
     /**
-     * Sets the item to be collected on the card for the given team
-     * @param material The material of the item collected
+     * Sets the item in the given cell to be collected on the card for the given team
+     * @param cellIndex The index of the cell of the item collected
      * @param team The team to mark the item for
      */
-    private void addItemCollected(Material material, PlayerTeam team) {
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            for (int x = 0; x < BOARD_SIZE; x++) {
-                BingoItem bingoItem = bingoItems[y][x];
-                if (bingoItem.getMaterial().equals(material)
-                        && !bingoItem.hasCollected(team)) {
-                    bingoItem.addCollector(team);
-
-                    team.incrementCollected();
-                }
-            }
+    private void addItemCollected(int cellIndex, PlayerTeam team) {
+        BingoItem bingoItem = getBingoItem(cellIndex);
+        bingoItem.addCollector(team);
+
+        long cellBit = 1L << cellIndex;
+        collectedMasks[team.getId()] |= cellBit;
+
+        if (isItemLocked(bingoItem)) {
+            lockedMask |= cellBit;
         }
+
+        team.incrementCollected();
     }
 
     /**
@@ -164,26 +211,34 @@ public class BingoCard {
      * @return The number of lines completed
      */
     public int getNumLinesComplete(PlayerTeam team) {
-        int numLinesComplete = 0;
+        long collectedMask = collectedMasks[team.getId()];
 
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            if (checkRow(team, y)) {
+        int numLinesComplete = 0;
+        for (long lineMask : shape.getLineMasks()) {
+            if ((collectedMask & lineMask) == lineMask) {
                 numLinesComplete++;
             }
         }
 
-        for (int x = 0; x < BOARD_SIZE; x++) {
-            if (checkColumn(team, x)) {
-                numLinesComplete++;
-            }
-        }
+        return numLinesComplete;
+    }
 
-        if (checkDiagonal(team, true)) {
-            numLinesComplete++;
-        }
+    /**
+     * Gets the number of lines (rows, columns or diagonals) through the given cell that are completed on this
+     * bingo card for the given team. If the cell was just collected, this is the number of lines that the
+     * collection completed.
+     * @param team The team to check for
+     * @param cellIndex The index of the cell
+     * @return The number of lines through the cell that are completed
+     */
+    public int getNumLinesCompleteThrough(PlayerTeam team, int cellIndex) {
+        long collectedMask = collectedMasks[team.getId()];
 
-        if (checkDiagonal(team, false)) {
-            numLinesComplete++;
+        int numLinesComplete = 0;
+        for (long lineMask : shape.getCellLineMasks(cellIndex)) {
+            if ((collectedMask & lineMask) == lineMask) {
+                numLinesComplete++;
+            }
         }
 
         return numLinesComplete;
@@ -195,73 +250,50 @@ public class BingoCard {
      * @return Whether this bingo is fully completed
      */
     public boolean isCardComplete(PlayerTeam team) {
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            for (int x = 0; x < BOARD_SIZE; x++) {
-                BingoItem bingoItem = bingoItems[y][x];
-                if (!bingoItem.hasCollected(team)) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return collectedMasks[team.getId()] == shape.getFullMask();
     }
 
     /**
-     * Check whether the row with index y is completed for the given team
-     * @param team The team to check for
-     * @param y The index to check for
-     * @return Whether the row is completed
+     * Get the bitmask of the cells that the given team has collected, with bit (y * size + x) set if the
+     * item at (x, y) has been collected
+     * @param team The team to get the mask for
+     * @return A long representing the collected cells
      */
-    private boolean checkRow(PlayerTeam team, int y) {
-        for (int x = 0; x < BOARD_SIZE; x++) {
-            if (!bingoItems[y][x].hasCollected(team)) {
-                return false;
-            }
-        }
-
-        return true;
+    public long getCollectedMask(PlayerTeam team) {
+        return collectedMasks[team.getId()];
     }
 
     /**
-     * Check whether the column with index x is completed for the given team
-     * @param team The team to check for
-     * @param x The index to check for
-     * @return Whether the column is completed
+     * Get the bitmask of the cells that are locked due to their number of completions
+     * @return A long representing the locked cells
      */
-    private boolean checkColumn(PlayerTeam team, int x) {
-        for (int y = 0; y < BOARD_SIZE; y++) {
-            if (!bingoItems[y][x].hasCollected(team)) {
-                return false;
-            }
-        }
+    public long getLockedMask() {
+        return lockedMask;
+    }
 
-        return true;
+    /**
+     * Get the bingo item in the cell with the given index
+     * @param cellIndex The index of the cell
+     * @return The bingo item in the cell
+     */
+    public BingoItem getBingoItem(int cellIndex) {
+        return bingoItems[shape.getY(cellIndex)][shape.getX(cellIndex)];
     }
 
     /**
-     * Check whether a diagonal is completed for the given team
-     * @param team The team to check for
-     * @param startTopLeft Whether to check the diagonal starting in the top left
-     *                     or the diagonal starting in the top right
-     * @return Whether the diagonal is completed
+     * Get the number of cells on this bingo card
+     * @return The number of cells
      */
-    private boolean checkDiagonal(PlayerTeam team, boolean startTopLeft) {
-        if (startTopLeft) {
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                if (!bingoItems[i][i].hasCollected(team)) {
-                    return false;
-                }
-            }
-        } else {
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                if (!bingoItems[i][BOARD_SIZE - 1 - i].hasCollected(team)) {
-                    return false;
-                }
-            }
-        }
+    public int getNumCells() {
+        return shape.getNumCells();
+    }
 
-        return true;
+    /**
+     * Get the shape of the board of this card
+     * @return The board shape
+     */
+    public BoardShape getShape() {
+        return shape;
     }
 
     /**
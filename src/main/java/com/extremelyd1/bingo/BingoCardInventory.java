@@ -2,81 +2,288 @@ package com.extremelyd1.bingo;
 
 import com.extremelyd1.bingo.item.BingoItem;
 import com.extremelyd1.game.team.PlayerTeam;
+import com.extremelyd1.game.team.Team;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Represents the Bukkit inventory with the bingo card items
+ * Represents the Bukkit inventories with the bingo card items.
+ * Each team has its own view of the card, which also shows the state of each item for that team, and spectators
+ * share a view without team state. Views are created the first time they are shown. When the collectors of an item
+ * change, only the slot of that item is updated in each view, so open views receive single-slot updates.
+ * Boards that have more rows than fit in a chest inventory are split over multiple pages, with a row of
+ * navigation items at the bottom of each page.
  */
 public class BingoCardInventory {
 
     /**
-     * The Bukkit inventory to store the items
+     * The number of slots in a row of a chest inventory
      */
-    private final Inventory inventory;
+    private static final int ROW_LENGTH = 9;
+    /**
+     * The maximum number of rows in a chest inventory
+     */
+    private static final int MAX_ROWS = 6;
+    /**
+     * The slot in the navigation row of the item that opens the previous page
+     */
+    private static final int PREVIOUS_PAGE_SLOT = 0;
+    /**
+     * The slot in the navigation row of the item that opens the next page
+     */
+    private static final int NEXT_PAGE_SLOT = ROW_LENGTH - 1;
+    /**
+     * The view key of the view that is shared by all players without a team or in the spectator team
+     */
+    private static final int SHARED_VIEW = -1;
+
+    /**
+     * The bingo card that this inventory shows
+     */
+    private final BingoCard bingoCard;
+
+    /**
+     * The number of pages of each view
+     */
+    private final int numPages;
+    /**
+     * The number of rows of each page
+     */
+    private final int numInventoryRows;
+    /**
+     * The number of rows of the board that are shown on each page
+     */
+    private final int boardRowsPerPage;
+    /**
+     * The number of empty slots to the left of the board in each row, to center it in the inventory
+     */
+    private final int columnOffset;
+
+    /**
+     * The items of each cell without lore, indexed by cell index, which are copied for each update of the cell
+     */
+    private final ItemStack[] templates;
+    /**
+     * The collector bitmask of each cell at the time of its last update, indexed by cell index
+     */
+    private final long[] shownCollectorMasks;
+
+    /**
+     * The views that have been created, keyed by team ID or SHARED_VIEW, each consisting of one inventory per page
+     */
+    private final Map<Integer, Inventory[]> views;
+    /**
+     * For each inventory of each view, the index of the page it shows
+     */
+    private final Map<Inventory, Integer> pageIndices;
+
+    /**
+     * Create a bingo card inventory for the given bingo card
+     * @param bingoCard The bingo card to make the inventory from
+     */
+    public BingoCardInventory(BingoCard bingoCard) {
+        this.bingoCard = bingoCard;
 
-    // fallen's fork: better bingo item display
-    private BingoItem[][] bingoItems;
+        int size = bingoCard.getShape().getSize();
+        if (size <= MAX_ROWS) {
+            boardRowsPerPage = size;
+            numPages = 1;
+            numInventoryRows = size;
+        } else {
+            // Leave the last row of each page for the navigation items
+            boardRowsPerPage = MAX_ROWS - 1;
+            numPages = (size + boardRowsPerPage - 1) / boardRowsPerPage;
+            numInventoryRows = MAX_ROWS;
+        }
+        columnOffset = (ROW_LENGTH - size) / 2;
+
+        int numCells = bingoCard.getNumCells();
+        templates = new ItemStack[numCells];
+        shownCollectorMasks = new long[numCells];
+        for (int cellIndex = 0; cellIndex < numCells; cellIndex++) {
+            templates[cellIndex] = new ItemStack(bingoCard.getBingoItem(cellIndex).getMaterial(), 1);
+        }
+
+        views = new HashMap<>();
+        pageIndices = new IdentityHashMap<>();
+    }
 
     /**
-     * Create a bingo card inventory with the given bingo card
-     * @param bingoItems The bingo card items to make the inventory from
+     * Updates the slot of the given cell in all views, if the collectors of the item in the cell changed
+     * since its last update
+     * @param cellIndex The index of the cell to update
      */
-    public BingoCardInventory(BingoItem[][] bingoItems) {
-        // Create the inventory and set the items in it
-        inventory = Bukkit.createInventory(
-                null,
-                9 * 5,
-                ChatColor.AQUA + "Bingo Card"
-        );
+    public void updateCell(int cellIndex) {
+        BingoItem bingoItem = bingoCard.getBingoItem(cellIndex);
+        if (bingoItem.getCollectorMask() == shownCollectorMasks[cellIndex]) {
+            return;
+        }
+        shownCollectorMasks[cellIndex] = bingoItem.getCollectorMask();
+
+        for (Map.Entry<Integer, Inventory[]> entry : views.entrySet()) {
+            setCellItem(entry.getValue(), entry.getKey(), cellIndex);
+        }
+    }
+
+    /**
+     * Sets the item of the given cell in the given view
+     * @param view The inventories of the view
+     * @param viewKey The team ID of the view, or SHARED_VIEW
+     * @param cellIndex The index of the cell
+     */
+    private void setCellItem(Inventory[] view, int viewKey, int cellIndex) {
+        BingoItem bingoItem = bingoCard.getBingoItem(cellIndex);
+        ItemStack itemStack = templates[cellIndex].clone();
+
+        List<String> lores = new ArrayList<>();
+
+        // Show the state of the item for the team of the view
+        if (viewKey != SHARED_VIEW) {
+            if ((bingoItem.getCollectorMask() & (1L << viewKey)) != 0) {
+                lores.add(ChatColor.GREEN + "Collected by your team");
+            } else if (bingoCard.isItemLocked(bingoItem)) {
+                lores.add(ChatColor.RED + "Locked");
+            }
+        }
 
         // fallen's fork: better bingo item display
-        this.bingoItems = bingoItems;
-        this.rebuildInventory();
+        List<PlayerTeam> teams = new ArrayList<>();
+        bingoItem.getCollectors().forEach(teams::add);
+        if (teams.isEmpty()) {
+            lores.add(ChatColor.GRAY + "Collected by no team");
+        } else {
+            lores.add(ChatColor.GRAY + "Collected by:");
+            for (PlayerTeam team : teams) {
+                lores.add(ChatColor.DARK_GRAY + "- " + team.getColor() + team.getName() + ChatColor.GRAY + " team");
+            }
+        }
+        itemStack.setLore(lores);
+        if (!teams.isEmpty()) {
+            itemStack.setAmount(teams.size() + 10);
+        }
+        // fallen's fork: better bingo item display ends
+
+        BoardShape shape = bingoCard.getShape();
+        int y = shape.getY(cellIndex);
+        int page = y / boardRowsPerPage;
+        int row = y % boardRowsPerPage;
+        view[page].setItem(row * ROW_LENGTH + shape.getX(cellIndex) + columnOffset, itemStack);
     }
 
-    public void rebuildInventory() {
-        for (int y = 0; y < BingoCard.BOARD_SIZE; y++) {
-            for (int x = 0; x < BingoCard.BOARD_SIZE; x++) {
-                Material material = bingoItems[y][x].getMaterial();
-                ItemStack itemStack = new ItemStack(material, 1);
-
-                // fallen's fork: better bingo item display
-                List<PlayerTeam> teams = new ArrayList<>();
-                bingoItems[y][x].getCollectors().forEach(teams::add);
-                List<String> lores = new ArrayList<>();
-                if (teams.isEmpty()) {
-                    lores.add(ChatColor.GRAY + "Collected by no team");
-                } else {
-                    lores.add(ChatColor.GRAY + "Collected by:");
-                    for (PlayerTeam team : teams) {
-                        lores.add(ChatColor.DARK_GRAY + "- " + team.getColor() + team.getName() + ChatColor.GRAY + " team");
-                    }
-                }
-                itemStack.setLore(lores);
-                if (!teams.isEmpty()) {
-                    itemStack.setAmount(teams.size() + 10);
-                }
-                // fallen's fork: better bingo item display ends
-
-                inventory.setItem(y * 9 + x + 2, itemStack);
+    /**
+     * Get the view with the given key, creating it if it does not exist yet
+     * @param viewKey The team ID of the view, or SHARED_VIEW
+     * @return The inventories of the view, one for each page
+     */
+    private Inventory[] getOrCreateView(int viewKey) {
+        Inventory[] view = views.get(viewKey);
+        if (view != null) {
+            return view;
+        }
+
+        // Create the inventories and set the navigation items in them
+        view = new Inventory[numPages];
+        for (int page = 0; page < numPages; page++) {
+            String title = ChatColor.AQUA + "Bingo Card";
+            if (numPages > 1) {
+                title += ChatColor.GRAY + " (" + (page + 1) + "/" + numPages + ")";
+            }
+
+            view[page] = Bukkit.createInventory(
+                    null,
+                    ROW_LENGTH * numInventoryRows,
+                    title
+            );
+            pageIndices.put(view[page], page);
+
+            int navigationRowStart = ROW_LENGTH * (numInventoryRows - 1);
+            if (page > 0) {
+                view[page].setItem(navigationRowStart + PREVIOUS_PAGE_SLOT, createNavigationItem("Previous page"));
+            }
+            if (page < numPages - 1) {
+                view[page].setItem(navigationRowStart + NEXT_PAGE_SLOT, createNavigationItem("Next page"));
             }
         }
+
+        for (int cellIndex = 0; cellIndex < bingoCard.getNumCells(); cellIndex++) {
+            setCellItem(view, viewKey, cellIndex);
+        }
+
+        views.put(viewKey, view);
+        return view;
     }
 
     /**
-     * Show the given player this inventory
+     * Creates an item that is used to navigate between the pages of this inventory
+     * @param name The display name of the item
+     * @return The created ItemStack
+     */
+    private static ItemStack createNavigationItem(String name) {
+        ItemStack itemStack = new ItemStack(Material.ARROW, 1);
+
+        ItemMeta meta = itemStack.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(ChatColor.YELLOW + name);
+
+            itemStack.setItemMeta(meta);
+        }
+
+        return itemStack;
+    }
+
+    /**
+     * Gets the inventory that should be opened when the given slot in the given inventory is clicked
+     * @param inventory The inventory that was clicked
+     * @param slot The slot that was clicked
+     * @return The inventory of the page to open, or null if the slot is not a navigation item of this inventory
+     */
+    public Inventory getNavigationTarget(Inventory inventory, int slot) {
+        Integer page = pageIndices.get(inventory);
+        if (page == null) {
+            return null;
+        }
+
+        Inventory[] view = null;
+        for (Inventory[] candidate : views.values()) {
+            if (candidate[page] == inventory) {
+                view = candidate;
+                break;
+            }
+        }
+        if (view == null) {
+            return null;
+        }
+
+        int navigationRowStart = inventory.getSize() - ROW_LENGTH;
+        if (page > 0 && slot == navigationRowStart + PREVIOUS_PAGE_SLOT) {
+            return view[page - 1];
+        }
+        if (page < numPages - 1 && slot == navigationRowStart + NEXT_PAGE_SLOT) {
+            return view[page + 1];
+        }
+
+        return null;
+    }
+
+    /**
+     * Show the given player the view of this inventory for the given team
      * @param player The player to show the inventory to
+     * @param team The team of the player, or null if the player has no team
      */
-    public void show(Player player) {
-        player.openInventory(inventory);
+    public void show(Player player, Team team) {
+        int viewKey = SHARED_VIEW;
+        if (team instanceof PlayerTeam playerTeam) {
+            viewKey = playerTeam.getId();
+        }
+
+        player.openInventory(getOrCreateView(viewKey)[0]);
     }
 
 }
@@ -0,0 +1,248 @@
+package com.extremelyd1.bingo;
+
+import com.extremelyd1.bingo.item.BingoItemMaterials;
+import com.extremelyd1.config.Config;
+import com.extremelyd1.game.Game;
+import org.bukkit.Material;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Pool of bingo cards that are generated in the background before they are needed, so that starting a game or
+ * rerolling the card only needs to take a ready card. The cards in the pool are generated for the settings at the
+ * time of generation, and the pool is invalidated when the settings change.
+ */
+public class BingoCardPool {
+
+    /**
+     * The number of cards to keep ready in the pool
+     */
+    private static final int POOL_SIZE = 3;
+
+    /**
+     * The maximum number of cards to generate when looking for a balanced card, after which the most balanced
+     * card that was generated is used
+     */
+    private static final int MAX_BALANCE_ATTEMPTS = 10;
+
+    /**
+     * The settings that determine the contents of a generated card
+     * @param numSTier The number of S tier materials
+     * @param numATier The number of A tier materials
+     * @param numBTier The number of B tier materials
+     * @param numCTier The number of C tier materials
+     * @param numDTier The number of D tier materials
+     * @param boardSize The size of the board
+     * @param completionsToLock The number of completions for an item to lock it
+     */
+    private record CardSettings(
+            int numSTier,
+            int numATier,
+            int numBTier,
+            int numCTier,
+            int numDTier,
+            int boardSize,
+            int completionsToLock
+    ) {
+    }
+
+    /**
+     * The game instance
+     */
+    private final Game game;
+    /**
+     * The evaluator that rejects unbalanced cards
+     */
+    private final CardBalanceEvaluator balanceEvaluator;
+    /**
+     * The executor service of the thread that generates the cards
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The cards that are being generated or are ready, in order of submission
+     */
+    private final Deque<CompletableFuture<BingoCard>> cards;
+    /**
+     * The settings for which the cards in the pool are generated
+     */
+    private CardSettings settings;
+
+    public BingoCardPool(Game game) {
+        this.game = game;
+        this.balanceEvaluator = new CardBalanceEvaluator();
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>()
+        );
+        threadPoolExecutor.setThreadFactory(runnable -> {
+            Thread thread = new Thread(runnable, "Bingo Card Pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = threadPoolExecutor;
+
+        this.cards = new ArrayDeque<>();
+    }
+
+    /**
+     * Takes a ready card for the current settings from the pool and starts generating a new card to replace it.
+     * If no card is ready yet, a card is picked on the calling thread instead, without evaluating its balance or
+     * preparing the images of its items, since neither should run on the main thread.
+     * @return A new bingo card
+     */
+    public BingoCard take() {
+        // Settings that are not changed through commands, such as the board size, are checked here
+        if (!getCurrentSettings().equals(settings)) {
+            invalidate();
+        }
+
+        BingoCard bingoCard = null;
+
+        // Take the first card that is ready, removing the cards that could not be generated on the way
+        Iterator<CompletableFuture<BingoCard>> iterator = cards.iterator();
+        while (bingoCard == null && iterator.hasNext()) {
+            CompletableFuture<BingoCard> card = iterator.next();
+            if (card.isDone()) {
+                iterator.remove();
+                bingoCard = card.getNow(null);
+            }
+        }
+
+        if (bingoCard == null) {
+            bingoCard = generateCandidate(settings, game.getBingoItemMaterials().getMaterialData());
+        }
+
+        fill();
+
+        return bingoCard;
+    }
+
+    /**
+     * Discards all cards in the pool and starts generating new cards for the current settings.
+     * Should be called whenever a setting that determines the contents of a card changes.
+     */
+    public void invalidate() {
+        for (CompletableFuture<BingoCard> card : cards) {
+            card.cancel(false);
+        }
+        cards.clear();
+
+        settings = getCurrentSettings();
+        fill();
+    }
+
+    /**
+     * Starts generating cards for the settings of the pool until the pool is full
+     */
+    private void fill() {
+        CardSettings currentSettings = settings;
+        while (cards.size() < POOL_SIZE) {
+            CompletableFuture<BingoCard> card = CompletableFuture
+                    .supplyAsync(() -> generate(currentSettings), executor)
+                    .exceptionally(e -> {
+                        Game.getLogger().log(Level.WARNING, "Could not generate bingo card", e);
+                        return null;
+                    });
+
+            cards.addLast(card);
+        }
+    }
+
+    /**
+     * Generates a balanced card for the given settings and prepares the images of its items.
+     * Unbalanced cards are rejected, and if no balanced card is found in time, the most balanced card is used.
+     * @param settings The settings to generate the card for
+     * @return The generated card
+     */
+    private BingoCard generate(CardSettings settings) {
+        Random random = new Random();
+
+        // Pick and evaluate all candidates with the same materials, even if the materials are reloaded in the meantime
+        BingoItemMaterials.MaterialData materialData = game.getBingoItemMaterials().getMaterialData();
+
+        BingoCard bestCard = null;
+        double bestRatio = Double.MAX_VALUE;
+        for (int attempt = 0; attempt < MAX_BALANCE_ATTEMPTS; attempt++) {
+            BingoCard bingoCard = generateCandidate(settings, materialData);
+
+            CardBalanceEvaluator.Evaluation evaluation = balanceEvaluator.evaluate(
+                    bingoCard,
+                    materialData,
+                    random.nextLong()
+            );
+            if (evaluation.isBalanced()) {
+                bestCard = bingoCard;
+                break;
+            }
+
+            if (evaluation.getLineTimeRatio() < bestRatio) {
+                bestCard = bingoCard;
+                bestRatio = evaluation.getLineTimeRatio();
+            }
+        }
+
+        game.getBingoCardItemFactory().prepare(bestCard);
+
+        return bestCard;
+    }
+
+    /**
+     * Generates a card for the given settings, without checking its balance
+     * @param settings The settings to generate the card for
+     * @param materialData The snapshot of the materials to pick from
+     * @return The generated card
+     */
+    private BingoCard generateCandidate(CardSettings settings, BingoItemMaterials.MaterialData materialData) {
+        List<Material> materials = game.getBingoItemMaterials().pickMaterials(
+                materialData,
+                settings.numSTier(),
+                settings.numATier(),
+                settings.numBTier(),
+                settings.numCTier(),
+                settings.numDTier()
+        );
+
+        BingoCard bingoCard = new BingoCard(
+                materials,
+                BoardShape.of(settings.boardSize()),
+                settings.completionsToLock()
+        );
+
+        return bingoCard;
+    }
+
+    /**
+     * Get the current settings that determine the contents of a card
+     * @return The current settings
+     */
+    private CardSettings getCurrentSettings() {
+        Config config = game.getConfig();
+
+        return new CardSettings(
+                config.getNumSTier(),
+                config.getNumATier(),
+                config.getNumBTier(),
+                config.getNumCTier(),
+                config.getNumDTier(),
+                config.getBoardSize(),
+                game.getWinConditionChecker().getCompletionsToLock()
+        );
+    }
+
+}
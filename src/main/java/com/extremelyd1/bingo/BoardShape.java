@@ -0,0 +1,226 @@
+package com.extremelyd1.bingo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the shape of a square bingo board of a given size, holding the precomputed bitmasks that are used
+ * to check collections and lines on a card of that size. Bit (y * size + x) of a mask represents the cell at (x, y).
+ */
+public class BoardShape {
+
+    /**
+     * The minimum size of a board
+     */
+    public static final int MIN_SIZE = 3;
+    /**
+     * The maximum size of a board, limited by the number of cells that fit in a long bitmask
+     */
+    public static final int MAX_SIZE = 8;
+    /**
+     * The default size of a board
+     */
+    public static final int DEFAULT_SIZE = 5;
+
+    /**
+     * The cached board shapes, indexed by board size
+     */
+    private static final BoardShape[] SHAPES = createShapes();
+
+    /**
+     * The number of cells on each side of the board
+     */
+    private final int size;
+    /**
+     * The number of cells on the board
+     */
+    private final int numCells;
+    /**
+     * The bitmask with a bit set for each cell on the board
+     */
+    private final long fullMask;
+    /**
+     * The bitmasks of all rows, columns and diagonals on the board
+     */
+    private final long[] lineMasks;
+    /**
+     * For each cell, the bitmasks of the lines that go through that cell
+     */
+    private final long[][] cellLineMasks;
+
+    private BoardShape(int size) {
+        this.size = size;
+        this.numCells = size * size;
+        this.fullMask = numCells == Long.SIZE ? -1L : (1L << numCells) - 1;
+        this.lineMasks = createLineMasks();
+        this.cellLineMasks = createCellLineMasks();
+    }
+
+    /**
+     * Get the board shape of the given size
+     * @param size The number of cells on each side of the board
+     * @return The board shape of the given size
+     */
+    public static BoardShape of(int size) {
+        if (!isValidSize(size)) {
+            throw new IllegalArgumentException(
+                    "Board size must be between " + MIN_SIZE + " and " + MAX_SIZE + ", but was " + size
+            );
+        }
+
+        return SHAPES[size];
+    }
+
+    /**
+     * Whether a board of the given size is supported
+     * @param size The number of cells on each side of the board
+     * @return True if the size is between MIN_SIZE and MAX_SIZE (both inclusive), false otherwise
+     */
+    public static boolean isValidSize(int size) {
+        return size >= MIN_SIZE && size <= MAX_SIZE;
+    }
+
+    /**
+     * Creates the bitmasks of all lines (rows, columns and diagonals) on the board
+     * @return An array of bitmasks, one for each line
+     */
+    private long[] createLineMasks() {
+        long[] lineMasks = new long[2 * size + 2];
+        int lineIndex = 0;
+
+        for (int y = 0; y < size; y++) {
+            long rowMask = 0L;
+            for (int x = 0; x < size; x++) {
+                rowMask |= 1L << getCellIndex(x, y);
+            }
+            lineMasks[lineIndex++] = rowMask;
+        }
+
+        for (int x = 0; x < size; x++) {
+            long columnMask = 0L;
+            for (int y = 0; y < size; y++) {
+                columnMask |= 1L << getCellIndex(x, y);
+            }
+            lineMasks[lineIndex++] = columnMask;
+        }
+
+        long topLeftDiagonalMask = 0L;
+        long topRightDiagonalMask = 0L;
+        for (int i = 0; i < size; i++) {
+            topLeftDiagonalMask |= 1L << getCellIndex(i, i);
+            topRightDiagonalMask |= 1L << getCellIndex(size - 1 - i, i);
+        }
+        lineMasks[lineIndex++] = topLeftDiagonalMask;
+        lineMasks[lineIndex] = topRightDiagonalMask;
+
+        return lineMasks;
+    }
+
+    /**
+     * Creates for each cell the bitmasks of the lines that go through that cell, which is at most four lines
+     * regardless of the board size
+     * @return An array indexed by cell index containing arrays of line bitmasks
+     */
+    private long[][] createCellLineMasks() {
+        long[][] cellLineMasks = new long[numCells][];
+
+        for (int cellIndex = 0; cellIndex < numCells; cellIndex++) {
+            long cellBit = 1L << cellIndex;
+
+            List<Long> masks = new ArrayList<>();
+            for (long lineMask : lineMasks) {
+                if ((lineMask & cellBit) != 0) {
+                    masks.add(lineMask);
+                }
+            }
+
+            cellLineMasks[cellIndex] = masks.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        return cellLineMasks;
+    }
+
+    /**
+     * Creates the board shapes for all supported sizes
+     * @return An array of board shapes indexed by board size
+     */
+    private static BoardShape[] createShapes() {
+        BoardShape[] shapes = new BoardShape[MAX_SIZE + 1];
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            shapes[size] = new BoardShape(size);
+        }
+
+        return shapes;
+    }
+
+    /**
+     * Get the index of the cell at the given position
+     * @param x The x position (column) of the cell
+     * @param y The y position (row) of the cell
+     * @return The index of the cell
+     */
+    public int getCellIndex(int x, int y) {
+        return y * size + x;
+    }
+
+    /**
+     * Get the x position (column) of the cell with the given index
+     * @param cellIndex The index of the cell
+     * @return The x position of the cell
+     */
+    public int getX(int cellIndex) {
+        return cellIndex % size;
+    }
+
+    /**
+     * Get the y position (row) of the cell with the given index
+     * @param cellIndex The index of the cell
+     * @return The y position of the cell
+     */
+    public int getY(int cellIndex) {
+        return cellIndex / size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    /**
+     * Get the number of lines (rows, columns and diagonals) on the board
+     * @return The number of lines
+     */
+    public int getNumLines() {
+        return lineMasks.length;
+    }
+
+    /**
+     * Get the maximum number of lines that can be required to win on the board, which is the number of rows
+     * and columns
+     * @return The maximum number of lines to complete
+     */
+    public int getMaxNumLines() {
+        return 2 * size;
+    }
+
+    public long getFullMask() {
+        return fullMask;
+    }
+
+    public long[] getLineMasks() {
+        return lineMasks;
+    }
+
+    /**
+     * Get the bitmasks of the lines that go through the cell with the given index
+     * @param cellIndex The index of the cell
+     * @return An array of line bitmasks
+     */
+    public long[] getCellLineMasks(int cellIndex) {
+        return cellLineMasks[cellIndex];
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.extremelyd1.bingo;
+
+import com.extremelyd1.bingo.item.BingoItemMaterials;
+import org.bukkit.Material;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates how balanced a bingo card is by simulating many games on it in parallel.
+ * In each simulated game, every item takes an exponentially distributed time to collect with a mean based on its
+ * tier, where items that share a group are collected at correlated times. A line is complete once its slowest item
+ * is collected. A card is considered unbalanced if some line is expected to take far longer or shorter than another,
+ * for example a row that consists of only S tier items.
+ */
+public class CardBalanceEvaluator {
+
+    /**
+     * The mean time to collect an item of each tier (S, A, B, C, D), relative to a D tier item
+     */
+    private static final double[] TIER_MEAN_TIMES = {8.0, 4.0, 2.5, 1.5, 1.0};
+    /**
+     * The mean time to collect an item that is in none of the tiers
+     */
+    private static final double DEFAULT_MEAN_TIME = 2.5;
+    /**
+     * The number of games to simulate for each card
+     */
+    private static final int NUM_SIMULATIONS = 4096;
+    /**
+     * The number of games that a single task simulates before the work is not split any further
+     */
+    private static final int SIMULATIONS_PER_TASK = 256;
+    /**
+     * The maximum ratio between the expected completion times of the slowest and fastest line of a balanced card
+     */
+    private static final double MAX_LINE_TIME_RATIO = 2.5;
+
+    /**
+     * The result of evaluating a card
+     * @param lineMeanTimes The expected completion time of each line, indexed like the line masks of the board
+     * @param bingoMeanTime The expected time until the first line is completed
+     * @param bingoTimeVariance The variance of the time until the first line is completed
+     */
+    public record Evaluation(double[] lineMeanTimes, double bingoMeanTime, double bingoTimeVariance) {
+
+        /**
+         * Get the ratio between the expected completion times of the slowest and the fastest line
+         * @return The ratio, which is at least 1
+         */
+        public double getLineTimeRatio() {
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            for (double lineMeanTime : lineMeanTimes) {
+                min = Math.min(min, lineMeanTime);
+                max = Math.max(max, lineMeanTime);
+            }
+
+            return max / min;
+        }
+
+        /**
+         * Whether the card is balanced, meaning no line is expected to be much faster or slower than another
+         * @return True if the card is balanced, false otherwise
+         */
+        public boolean isBalanced() {
+            return getLineTimeRatio() <= MAX_LINE_TIME_RATIO;
+        }
+    }
+
+    /**
+     * Evaluates the balance of the given card by simulating games on it in parallel on the common fork-join pool
+     * @param bingoCard The card to evaluate
+     * @param materialData The snapshot of the materials that the card was picked from, used to look up the tiers
+     *                     and groups of its materials
+     * @param seed The seed of the simulations
+     * @return The evaluation of the card
+     */
+    public Evaluation evaluate(BingoCard bingoCard, BingoItemMaterials.MaterialData materialData, long seed) {
+        BoardShape shape = bingoCard.getShape();
+        int numCells = shape.getNumCells();
+
+        // Look up the mean collection time of each cell, and give cells that share a group the same draw index,
+        // so that they share their random draw in each simulation
+        double[] meanTimes = new double[numCells];
+        int[] drawIndices = new int[numCells];
+        for (int cellIndex = 0; cellIndex < numCells; cellIndex++) {
+            Material material = bingoCard.getBingoItem(cellIndex).getMaterial();
+
+            int tier = materialData.getTier(material);
+            meanTimes[cellIndex] = tier == -1 ? DEFAULT_MEAN_TIME : TIER_MEAN_TIMES[tier];
+
+            drawIndices[cellIndex] = cellIndex;
+            for (int otherIndex = 0; otherIndex < cellIndex; otherIndex++) {
+                Material other = bingoCard.getBingoItem(otherIndex).getMaterial();
+                if (materialData.areGroupMates(material, other)) {
+                    drawIndices[cellIndex] = drawIndices[otherIndex];
+                    break;
+                }
+            }
+        }
+
+        SimulationTask task = new SimulationTask(
+                shape.getLineMasks(),
+                meanTimes,
+                drawIndices,
+                0,
+                NUM_SIMULATIONS,
+                new SplittableRandom(seed)
+        );
+        Statistics statistics = ForkJoinPool.commonPool().invoke(task);
+
+        int numLines = shape.getNumLines();
+        double[] lineMeanTimes = new double[numLines];
+        for (int line = 0; line < numLines; line++) {
+            lineMeanTimes[line] = statistics.lineTimeSums[line] / NUM_SIMULATIONS;
+        }
+
+        double bingoMeanTime = statistics.bingoTimeSum / NUM_SIMULATIONS;
+        double bingoTimeVariance = statistics.bingoTimeSquareSum / NUM_SIMULATIONS - bingoMeanTime * bingoMeanTime;
+
+        return new Evaluation(lineMeanTimes, bingoMeanTime, bingoTimeVariance);
+    }
+
+    /**
+     * The accumulated results of a number of simulations
+     */
+    private static class Statistics {
+        /**
+         * The sum of the completion times of each line
+         */
+        private final double[] lineTimeSums;
+        /**
+         * The sum of the times until the first line is completed
+         */
+        private double bingoTimeSum;
+        /**
+         * The sum of the squares of the times until the first line is completed
+         */
+        private double bingoTimeSquareSum;
+
+        private Statistics(int numLines) {
+            this.lineTimeSums = new double[numLines];
+        }
+
+        /**
+         * Adds the results of the given statistics to these statistics
+         * @param other The statistics to add
+         */
+        private void add(Statistics other) {
+            for (int line = 0; line < lineTimeSums.length; line++) {
+                lineTimeSums[line] += other.lineTimeSums[line];
+            }
+            bingoTimeSum += other.bingoTimeSum;
+            bingoTimeSquareSum += other.bingoTimeSquareSum;
+        }
+    }
+
+    /**
+     * Task that simulates a range of games, splitting the range over subtasks if it is too large
+     */
+    private static class SimulationTask extends RecursiveTask<Statistics> {
+
+        /**
+         * The bitmasks of all lines on the board
+         */
+        private final long[] lineMasks;
+        /**
+         * The mean collection time of each cell
+         */
+        private final double[] meanTimes;
+        /**
+         * For each cell, the index of the cell whose random draw it shares
+         */
+        private final int[] drawIndices;
+        /**
+         * The index of the first simulation of this task
+         */
+        private final int start;
+        /**
+         * The index after the last simulation of this task
+         */
+        private final int end;
+        /**
+         * The random source of this task, split off from the random source of the parent task
+         */
+        private final SplittableRandom random;
+
+        private SimulationTask(
+                long[] lineMasks,
+                double[] meanTimes,
+                int[] drawIndices,
+                int start,
+                int end,
+                SplittableRandom random
+        ) {
+            this.lineMasks = lineMasks;
+            this.meanTimes = meanTimes;
+            this.drawIndices = drawIndices;
+            this.start = start;
+            this.end = end;
+            this.random = random;
+        }
+
+        @Override
+        protected Statistics compute() {
+            if (end - start > SIMULATIONS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+
+                // Split the random sources before forking, so that the results do not depend on scheduling
+                SimulationTask left = new SimulationTask(
+                        lineMasks, meanTimes, drawIndices, start, middle, random.split()
+                );
+                SimulationTask right = new SimulationTask(
+                        lineMasks, meanTimes, drawIndices, middle, end, random.split()
+                );
+
+                left.fork();
+                Statistics statistics = right.compute();
+                statistics.add(left.join());
+
+                return statistics;
+            }
+
+            int numCells = meanTimes.length;
+            Statistics statistics = new Statistics(lineMasks.length);
+            double[] draws = new double[numCells];
+            double[] cellTimes = new double[numCells];
+
+            for (int simulation = start; simulation < end; simulation++) {
+                // Draw an exponentially distributed factor for each group of cells
+                for (int cellIndex = 0; cellIndex < numCells; cellIndex++) {
+                    if (drawIndices[cellIndex] == cellIndex) {
+                        draws[cellIndex] = -Math.log(1.0 - random.nextDouble());
+                    }
+                    cellTimes[cellIndex] = meanTimes[cellIndex] * draws[drawIndices[cellIndex]];
+                }
+
+                double bingoTime = Double.MAX_VALUE;
+                for (int line = 0; line < lineMasks.length; line++) {
+                    // A line is completed once its slowest cell is collected
+                    double lineTime = 0;
+                    for (long cells = lineMasks[line]; cells != 0; cells &= cells - 1) {
+                        lineTime = Math.max(lineTime, cellTimes[Long.numberOfTrailingZeros(cells)]);
+                    }
+
+                    statistics.lineTimeSums[line] += lineTime;
+                    bingoTime = Math.min(bingoTime, lineTime);
+                }
+
+                statistics.bingoTimeSum += bingoTime;
+                statistics.bingoTimeSquareSum += bingoTime * bingoTime;
+            }
+
+            return statistics;
+        }
+    }
+
+}
@@ -19,10 +19,15 @@ public class BingoItem {
      * A list of which teams have collected this item
      */
     private final List<PlayerTeam> collectors;
+    /**
+     * A bitmask of which teams have collected this item, with a bit for each team ID
+     */
+    private long collectorMask;
 
     public BingoItem(Material material) {
         this.material = material;
         this.collectors = new ArrayList<>();
+        this.collectorMask = 0L;
     }
 
     /**
@@ -38,6 +43,7 @@ public class BingoItem {
      */
     public void addCollector(PlayerTeam team) {
         collectors.add(team);
+        collectorMask |= 1L << team.getId();
     }
 
     /**
@@ -46,7 +52,7 @@ public class BingoItem {
      * @return Whether the team has collected the item
      */
     public boolean hasCollected(PlayerTeam team) {
-        return collectors.contains(team);
+        return (collectorMask & (1L << team.getId())) != 0;
     }
 
     /**
@@ -62,7 +68,15 @@ public class BingoItem {
      * @return An integer representing the number of collections
      */
     public int getNumCollectors() {
-        return collectors.size();
+        return Long.bitCount(collectorMask);
+    }
+
+    /**
+     * Get the bitmask of teams that have collected this item, with a bit set for each collector's team ID
+     * @return A long representing the collectors of this item
+     */
+    public long getCollectorMask() {
+        return collectorMask;
     }
 
 }
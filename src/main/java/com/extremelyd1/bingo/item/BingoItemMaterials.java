@@ -1,11 +1,15 @@
 package com.extremelyd1.bingo.item;
 
 import com.extremelyd1.game.Game;
-import com.extremelyd1.util.FileUtil;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A class that handles loading/storing of material names from file
@@ -22,9 +26,19 @@ public class BingoItemMaterials {
     private final String BLACKLIST_FILE_NAME = "blacklist.txt";
 
     /**
-     * The number of times to attempt picking materials while respecting groups.
+     * All materials, indexed by ordinal
      */
-    private static final int MAX_MATERIAL_PICK_TRIES = 10;
+    private static final Material[] MATERIALS = Material.values();
+    /**
+     * The number of longs in a bitset indexed by material ordinal
+     */
+    private static final int ORDINAL_WORDS = (MATERIALS.length + 63) >>> 6;
+
+    /**
+     * The delay in milliseconds after the last change to a file before the files are reloaded, so that a file that
+     * is still being written is not read
+     */
+    private static final long RELOAD_DELAY = 500;
 
     /**
      * The game instance
@@ -32,85 +46,319 @@ public class BingoItemMaterials {
     private final Game game;
 
     /**
-     * A list of bingo items of S tier rarity
+     * Immutable snapshot of the loaded materials, indexed by material ordinal. A new snapshot is created for each
+     * load, so that picking materials never sees a partially loaded state. A card should be picked and evaluated
+     * with the same snapshot, which can be obtained with {@link #getMaterialData()}.
+     * @param tierOrdinals The ordinals of the materials of each tier (S, A, B, C, D), which are copied for each pick
+     * @param tierByOrdinal The tier of each material (0 for S up to 4 for D), or -1 if it is in no tier
+     * @param blacklistMask The bitset of blacklisted materials
+     * @param groupMateMasks For each material, the bitset of the materials that it shares a group with,
+     *                       or null if the material is in no group
      */
-    private List<Material> sTierItems;
+    public record MaterialData(
+            int[][] tierOrdinals,
+            byte[] tierByOrdinal,
+            long[] blacklistMask,
+            long[][] groupMateMasks
+    ) {
+
+        /**
+         * Get the tier of the given material
+         *
+         * @param material The material
+         * @return The tier, from 0 for S tier up to 4 for D tier, or -1 if the material is in no tier
+         */
+        public int getTier(Material material) {
+            return tierByOrdinal[material.ordinal()];
+        }
+
+        /**
+         * Checks whether the given materials share a group
+         *
+         * @param material The first material
+         * @param other    The second material
+         * @return True if the materials share a group, false otherwise
+         */
+        public boolean areGroupMates(Material material, Material other) {
+            long[] groupMask = groupMateMasks[material.ordinal()];
+            return groupMask != null && isSet(groupMask, other.ordinal());
+        }
+    }
+
     /**
-     * A list of bingo items of A tier rarity
+     * The current snapshot of the loaded materials
      */
-    private List<Material> aTierItems;
+    private final AtomicReference<MaterialData> data;
+
     /**
-     * A list of bingo items of B tier rarity
+     * The service that watches the item data directory for changes, or null if the directory is not watched
      */
-    private List<Material> bTierItems;
+    private WatchService watchService;
     /**
-     * A list of bingo items of C tier rarity
+     * The thread that reloads the materials when the item data directory changes, or null if it is not watched
      */
-    private List<Material> cTierItems;
+    private Thread watchThread;
+
+    public BingoItemMaterials(Game game) {
+        this.game = game;
+        this.data = new AtomicReference<>();
+    }
+
     /**
-     * A list of bingo items of D tier rarity
+     * Load the materials of all tiers and group (and blacklist if enabled) into the data structures.
+     * A file that could not be read is logged and treated as empty, so that the other files are still used.
+     *
+     * @param dataFolder The data folder in which the data files are stored
      */
-    private List<Material> dTierItems;
+    public void loadMaterials(File dataFolder) {
+        Path itemDataPath = getItemDataPath(dataFolder);
+
+        data.set(createMaterialData(
+                readMaterialsFileOrEmpty(itemDataPath, S_TIER_FILE_NAME),
+                readMaterialsFileOrEmpty(itemDataPath, A_TIER_FILE_NAME),
+                readMaterialsFileOrEmpty(itemDataPath, B_TIER_FILE_NAME),
+                readMaterialsFileOrEmpty(itemDataPath, C_TIER_FILE_NAME),
+                readMaterialsFileOrEmpty(itemDataPath, D_TIER_FILE_NAME),
+                new HashSet<>(readMaterialsFileOrEmpty(itemDataPath, BLACKLIST_FILE_NAME)),
+                readGroupsFileOrEmpty(itemDataPath, GROUPS_FILE_NAME)
+        ));
+    }
+
     /**
-     * A list of bingo items that are blacklisted
+     * Read a file that contains a set of items/materials, logging an error and returning an empty list if the file
+     * could not be read
+     *
+     * @param path     The directory in which the file resides
+     * @param fileName The name of the file
+     * @return A list of materials that are stored in the given file
      */
-    private Set<Material> blacklist;
+    private List<Material> readMaterialsFileOrEmpty(Path path, String fileName) {
+        try {
+            return readMaterialsFile(path, fileName);
+        } catch (IOException e) {
+            Game.getLogger().severe("Could not read materials file " + fileName);
+            return new ArrayList<>();
+        }
+    }
 
     /**
-     * A mapping from material to all other materials that it shares a group with
+     * Get the collection of groups from a material groups file, logging an error and returning an empty collection
+     * if the file could not be read
+     *
+     * @param path     The directory in which the file resides
+     * @param fileName The name of the file
+     * @return The collection of groups that are stored in the given file
      */
-    private Map<Material, Set<Material>> mapMaterialToGroupMates;
-
-    public BingoItemMaterials(Game game) {
-        this.game = game;
+    private Collection<Set<Material>> readGroupsFileOrEmpty(Path path, String fileName) {
+        try {
+            return readGroupsFile(path, fileName);
+        } catch (IOException e) {
+            Game.getLogger().severe("Could not read material groups file " + fileName);
+            return new ArrayList<>();
+        }
     }
 
     /**
-     * Load the materials of all tiers and group (and blacklist if enabled) into the data structures
+     * Starts a thread that reloads the materials whenever a file in the item data directory changes.
+     * The files are parsed on that thread and the new materials are swapped in at once, after which the card pool
+     * is invalidated on the main thread.
      *
      * @param dataFolder The data folder in which the data files are stored
      */
-    public void loadMaterials(File dataFolder) {
-        String path = dataFolder.getPath() + "/item_data/";
+    public void watchMaterials(File dataFolder) {
+        Path itemDataPath = getItemDataPath(dataFolder);
+
+        WatchService watchService;
+        try {
+            watchService = itemDataPath.getFileSystem().newWatchService();
+            itemDataPath.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (IOException e) {
+            Game.getLogger().warning("Could not watch item data files for changes: " + e.getMessage());
+            return;
+        }
 
-        this.sTierItems = readMaterialsFile(path, S_TIER_FILE_NAME);
-        this.aTierItems = readMaterialsFile(path, A_TIER_FILE_NAME);
-        this.bTierItems = readMaterialsFile(path, B_TIER_FILE_NAME);
-        this.cTierItems = readMaterialsFile(path, C_TIER_FILE_NAME);
-        this.dTierItems = readMaterialsFile(path, D_TIER_FILE_NAME);
+        this.watchService = watchService;
+        this.watchThread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
 
-        this.blacklist = new HashSet<>(readMaterialsFile(path, BLACKLIST_FILE_NAME));
+                    // Wait until no more changes come in, so that all changes are reloaded at once
+                    do {
+                        key.pollEvents();
+                        key.reset();
+                        key = watchService.poll(RELOAD_DELAY, TimeUnit.MILLISECONDS);
+                    } while (key != null);
 
-        this.mapMaterialToGroupMates = new HashMap<>();
-        for (Collection<Material> group : readGroupsFile(path, GROUPS_FILE_NAME)) {
-            for (Material material : group) {
-                if (!this.mapMaterialToGroupMates.containsKey(material)) {
-                    this.mapMaterialToGroupMates.put(material, new HashSet<>());
+                    reloadMaterials(itemDataPath);
                 }
-                this.mapMaterialToGroupMates.get(material).addAll(group);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // The plugin is being disabled
             }
+        }, "Bingo Item Data Watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching the item data directory for changes and waits for the watching thread to finish.
+     * Should be called when the plugin is disabled.
+     */
+    public void stopWatching() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            Game.getLogger().warning("Could not stop watching item data files: " + e.getMessage());
+        }
+        watchThread.interrupt();
+
+        try {
+            watchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        watchService = null;
+        watchThread = null;
+    }
+
+    /**
+     * Reloads the materials from the given item data directory, keeping the current materials if any file
+     * could not be read
+     *
+     * @param itemDataPath The directory in which the data files are stored
+     */
+    private void reloadMaterials(Path itemDataPath) {
+        MaterialData materialData;
+        try {
+            materialData = readMaterialData(itemDataPath);
+        } catch (IOException e) {
+            Game.getLogger().warning("Could not reload item data files, keeping the current items: " + e.getMessage());
+            return;
         }
+
+        data.set(materialData);
+        Game.getLogger().info("Reloaded item data files");
+
+        // The plugin might have been disabled while the files were read, in which case no tasks can be scheduled
+        if (game.getPlugin().isEnabled()) {
+            Bukkit.getScheduler().runTask(game.getPlugin(), () -> game.getBingoCardPool().invalidate());
+        }
+    }
+
+    /**
+     * Get the path of the item data directory in the given data folder
+     *
+     * @param dataFolder The data folder
+     * @return The path of the item data directory
+     */
+    private static Path getItemDataPath(File dataFolder) {
+        return dataFolder.toPath().resolve("item_data");
+    }
+
+    /**
+     * Reads all data files from the given item data directory into a new snapshot. The blacklist file is optional,
+     * any other file that could not be read fails the whole read.
+     *
+     * @param itemDataPath The directory in which the data files are stored
+     * @return The snapshot of the materials
+     * @throws IOException If a file could not be read
+     */
+    private MaterialData readMaterialData(Path itemDataPath) throws IOException {
+        List<Material> blacklist = Files.exists(itemDataPath.resolve(BLACKLIST_FILE_NAME))
+                ? readMaterialsFile(itemDataPath, BLACKLIST_FILE_NAME)
+                : List.of();
+
+        return createMaterialData(
+                readMaterialsFile(itemDataPath, S_TIER_FILE_NAME),
+                readMaterialsFile(itemDataPath, A_TIER_FILE_NAME),
+                readMaterialsFile(itemDataPath, B_TIER_FILE_NAME),
+                readMaterialsFile(itemDataPath, C_TIER_FILE_NAME),
+                readMaterialsFile(itemDataPath, D_TIER_FILE_NAME),
+                new HashSet<>(blacklist),
+                readGroupsFile(itemDataPath, GROUPS_FILE_NAME)
+        );
+    }
+
+    /**
+     * Creates a snapshot of the given materials
+     *
+     * @param sTierItems The materials of S tier rarity
+     * @param aTierItems The materials of A tier rarity
+     * @param bTierItems The materials of B tier rarity
+     * @param cTierItems The materials of C tier rarity
+     * @param dTierItems The materials of D tier rarity
+     * @param blacklist  The materials that are blacklisted
+     * @param groups     The groups of materials
+     * @return The snapshot of the materials
+     */
+    private static MaterialData createMaterialData(
+            List<Material> sTierItems,
+            List<Material> aTierItems,
+            List<Material> bTierItems,
+            List<Material> cTierItems,
+            List<Material> dTierItems,
+            Set<Material> blacklist,
+            Collection<Set<Material>> groups
+    ) {
+        int[][] tierOrdinals = {
+                toOrdinals(sTierItems),
+                toOrdinals(aTierItems),
+                toOrdinals(bTierItems),
+                toOrdinals(cTierItems),
+                toOrdinals(dTierItems),
+        };
+
+        byte[] tierByOrdinal = new byte[MATERIALS.length];
+        Arrays.fill(tierByOrdinal, (byte) -1);
+        for (int tier = 0; tier < tierOrdinals.length; tier++) {
+            for (int ordinal : tierOrdinals[tier]) {
+                tierByOrdinal[ordinal] = (byte) tier;
+            }
+        }
+
+        // Map each material to all other materials that it shares a group with
+        Map<Material, Set<Material>> mapMaterialToGroupMates = new HashMap<>();
+        for (Collection<Material> group : groups) {
+            for (Material material : group) {
+                mapMaterialToGroupMates.computeIfAbsent(material, m -> new HashSet<>()).addAll(group);
+            }
+        }
+
+        long[][] groupMateMasks = new long[MATERIALS.length][];
+        for (Map.Entry<Material, Set<Material>> entry : mapMaterialToGroupMates.entrySet()) {
+            groupMateMasks[entry.getKey().ordinal()] = toOrdinalMask(entry.getValue());
+        }
+
+        return new MaterialData(tierOrdinals, tierByOrdinal, toOrdinalMask(blacklist), groupMateMasks);
     }
 
     /**
      * Read a file that contains a set of items/materials, one per line, returning the list of these materials
      *
-     * @param path     The path at which the file resides
+     * @param path     The directory in which the file resides
      * @param fileName The name of the file
      * @return A list of materials that are stored in the given file
+     * @throws IOException If the file could not be read
      */
-    private List<Material> readMaterialsFile(String path, String fileName) {
-        String fileString = FileUtil.readFileToString(path + fileName);
-        if (fileString == null) {
-            Game.getLogger().severe("Could not read materials file " + fileName);
-            return new ArrayList<>();
-        }
-
+    private List<Material> readMaterialsFile(Path path, String fileName) throws IOException {
         List<Material> materials = new ArrayList<>();
 
-        for (String line : fileString.split("\n")) {
+        for (String line : Files.readAllLines(path.resolve(fileName))) {
+            if (line.isBlank()) {
+                continue;
+            }
+
             try {
-                materials.add(Material.valueOf(line));
+                materials.add(Material.valueOf(line.trim()));
             } catch (IllegalArgumentException e) {
                 Game.getLogger().warning(String.format("Could not find material with name %s in file %s", line, fileName));
             }
@@ -123,25 +371,20 @@ public class BingoItemMaterials {
      * Get the collection of groups (sets of items/materials) from a material groups file
      * which contains a line per group, which is represented as a '|'-separated list of items.
      *
-     * @param path     The path at which the file resides
+     * @param path     The directory in which the file resides
      * @param fileName The name of the file
      * @return The collection of groups that are stored in the given file
+     * @throws IOException If the file could not be read
      */
-    private Collection<Set<Material>> readGroupsFile(String path, String fileName) {
-        String fileString = FileUtil.readFileToString(path + fileName);
-        if (fileString == null) {
-            Game.getLogger().severe("Could not read material groups file " + fileName);
-            return new HashSet<>();
-        }
-
-        Collection<Set<Material>> groups = new HashSet<>();
+    private Collection<Set<Material>> readGroupsFile(Path path, String fileName) throws IOException {
+        Collection<Set<Material>> groups = new ArrayList<>();
 
-        for (String line : fileString.split("\n")) {
+        for (String line : Files.readAllLines(path.resolve(fileName))) {
             if (!line.isBlank()) {
                 Set<Material> group = new HashSet<>();
                 for (String material : line.split("\\|")) {
                     try {
-                        group.add(Material.valueOf(material));
+                        group.add(Material.valueOf(material.trim()));
                     } catch (IllegalArgumentException e) {
                         Game.getLogger().warning(String.format("Could not find material with name %s in file %s", material, fileName));
                     }
@@ -153,6 +396,15 @@ public class BingoItemMaterials {
         return groups;
     }
 
+    /**
+     * Get the current snapshot of the loaded materials, which does not change when the materials are reloaded
+     *
+     * @return The snapshot of the materials
+     */
+    public MaterialData getMaterialData() {
+        return data.get();
+    }
+
     /**
      * Randomly pick a list of materials from the tiers based on the distribution denoted by the config values.
      *
@@ -169,14 +421,23 @@ public class BingoItemMaterials {
     }
 
     /**
-     * Randomly pick a list of materials from the tiers.
+     * Randomly pick a list of materials from the tiers, using the given seed for the randomness.
+     * Picking with the same seed and the same distribution always results in the same materials.
      *
-     * <p>
-     * Loops over the tiers, going over the items of that tier in random order, picking the first num(tier) materials
-     * that are not excluded either by being in the blacklist or by sharing a group with an already picked material.
-     * If this leads to no options remaining for a tier, the process is restarted.
-     * After MAX_MATERIAL_PICK_TRIES, one more attempt is made disregarding the grouping.
-     * </p>
+     * @param numSTier The number of S tier materials to pick
+     * @param numATier The number of A tier materials to pick
+     * @param numBTier The number of B tier materials to pick
+     * @param numCTier The number of C tier materials to pick
+     * @param numDTier The number of D tier materials to pick
+     * @param seed     The seed of the randomness
+     * @return A list of materials
+     */
+    public List<Material> pickMaterials(int numSTier, int numATier, int numBTier, int numCTier, int numDTier, long seed) {
+        return pickMaterials(data.get(), numSTier, numATier, numBTier, numCTier, numDTier, new Random(seed));
+    }
+
+    /**
+     * Randomly pick a list of materials from the tiers.
      *
      * @param numSTier The number of S tier materials to pick
      * @param numATier The number of A tier materials to pick
@@ -186,75 +447,184 @@ public class BingoItemMaterials {
      * @return A list of materials
      */
     public List<Material> pickMaterials(int numSTier, int numATier, int numBTier, int numCTier, int numDTier) {
-        Random random = new Random();
+        return pickMaterials(data.get(), numSTier, numATier, numBTier, numCTier, numDTier);
+    }
 
-        record Tier(List<Material> items, int numRequired) {
+    /**
+     * Randomly pick a list of materials from the tiers of the given snapshot.
+     *
+     * @param materialData The snapshot of the materials to pick from
+     * @param numSTier     The number of S tier materials to pick
+     * @param numATier     The number of A tier materials to pick
+     * @param numBTier     The number of B tier materials to pick
+     * @param numCTier     The number of C tier materials to pick
+     * @param numDTier     The number of D tier materials to pick
+     * @return A list of materials
+     */
+    public List<Material> pickMaterials(
+            MaterialData materialData,
+            int numSTier,
+            int numATier,
+            int numBTier,
+            int numCTier,
+            int numDTier
+    ) {
+        return pickMaterials(materialData, numSTier, numATier, numBTier, numCTier, numDTier, new Random());
+    }
+
+    /**
+     * Randomly pick a list of materials from the tiers in a single pass.
+     *
+     * <p>
+     * For each tier, a partial Fisher-Yates shuffle over a copy of the ordinals of the tier draws candidates in
+     * random order, each candidate being drawn at most once. A candidate is excluded if it is blacklisted, already
+     * picked or shares a group with an already picked material, which is checked against bitsets indexed by
+     * material ordinal. Candidates that are only excluded by their group are set aside, and if the tier runs out
+     * of other candidates the remaining materials are drawn from those, so that grouping is only disregarded
+     * where it makes picking impossible. The loaded tier lists are never modified.
+     * </p>
+     *
+     * @param materialData The snapshot of the materials to pick from
+     * @param numSTier     The number of S tier materials to pick
+     * @param numATier     The number of A tier materials to pick
+     * @param numBTier     The number of B tier materials to pick
+     * @param numCTier     The number of C tier materials to pick
+     * @param numDTier     The number of D tier materials to pick
+     * @param random       The source of randomness
+     * @return A list of materials
+     */
+    private List<Material> pickMaterials(
+            MaterialData materialData,
+            int numSTier,
+            int numATier,
+            int numBTier,
+            int numCTier,
+            int numDTier,
+            Random random
+    ) {
+        int[][] tiers = materialData.tierOrdinals();
+        int[] numRequired = {numSTier, numATier, numBTier, numCTier, numDTier};
+
+        List<Material> result = new ArrayList<>(numSTier + numATier + numBTier + numCTier + numDTier);
+
+        // The bitset of materials that can not be picked anymore
+        long[] excluded = new long[ORDINAL_WORDS];
+        if (game.getConfig().isBlacklistEnabled()) {
+            System.arraycopy(materialData.blacklistMask(), 0, excluded, 0, ORDINAL_WORDS);
         }
+        // The bitset of materials that can not be picked because they share a group with a picked material
+        long[] groupExcluded = new long[ORDINAL_WORDS];
 
-        Tier[] tiers = new Tier[] {
-                new Tier(sTierItems, numSTier),
-                new Tier(aTierItems, numATier),
-                new Tier(bTierItems, numBTier),
-                new Tier(cTierItems, numCTier),
-                new Tier(dTierItems, numDTier),
-        };
+        for (int tierIndex = 0; tierIndex < tiers.length; tierIndex++) {
+            int[] candidates = tiers[tierIndex].clone();
+            int numLeftInTier = numRequired[tierIndex];
 
-        // Try to create a selection (trying again if the random picking results in no options remaining)
-        for (int attempt = 0; attempt < MAX_MATERIAL_PICK_TRIES + 1; attempt++) { // +1 to disregard groups in last try
-            boolean ignoreGroups = attempt == MAX_MATERIAL_PICK_TRIES;
-            Game.getLogger().info("Starting attempt " + (attempt + 1) + " at material picking.");
-            if (ignoreGroups) Game.getLogger().warning("Ignoring grouping as last resort to pick items.");
+            // Candidates that were only excluded by their group are moved to the end of the array
+            int numGroupExcluded = 0;
+            int numCandidates = candidates.length;
 
-            List<Material> result = new ArrayList<>();
-            Set<Material> exclude = new HashSet<>();
-            if (game.getConfig().isBlacklistEnabled()) {
-                exclude.addAll(blacklist);
-            }
+            while (numLeftInTier > 0 && numCandidates > 0) {
+                // Draw a random candidate and swap it out of the range of remaining candidates
+                int drawIndex = random.nextInt(numCandidates);
+                int ordinal = candidates[drawIndex];
+                candidates[drawIndex] = candidates[--numCandidates];
 
-            for (Tier tier : tiers) {
-                // Randomize the order of the items in the tier
-                Collections.shuffle(tier.items, random);
+                if (isSet(excluded, ordinal)) {
+                    continue;
+                }
 
-                // Pick as many of this tier as required, skipping excluded items
-                int numLeftInTier = tier.numRequired;
-                for (Material material : tier.items) {
-                    if (numLeftInTier == 0) {
-                        break;
-                    }
+                if (isSet(groupExcluded, ordinal)) {
+                    candidates[candidates.length - ++numGroupExcluded] = ordinal;
+                    continue;
+                }
 
-                    if (exclude.contains(material)) {
-                        Game.getLogger().info("Skipping excluded material " + material + "(" + exclude.size() + " excluded)");
-                        continue;
-                    }
+                pick(materialData, ordinal, result, excluded, groupExcluded);
+                numLeftInTier--;
+            }
 
-                    // Include the material
-                    result.add(material);
-                    numLeftInTier--;
-
-                    if (!ignoreGroups) {
-                        // Add the materials that the picked material shares a group with to the excluded materials,
-                        // to prevent picking multiple materials that share a group
-                        var addToExclude = mapMaterialToGroupMates.getOrDefault(material, new HashSet<>());
-                        exclude.addAll(addToExclude);
-                        Game.getLogger().info("Included material " + material +
-                                ", thus newly excluding " + addToExclude.size() + " group materials.");
-                    } else {
-                        Game.getLogger().info("Included material " + material);
-                    }
+            if (numLeftInTier > 0 && numGroupExcluded > 0) {
+                Game.getLogger().warning("Ignoring grouping as last resort to pick items.");
+            }
+
+            // Draw the remaining materials from the candidates that were only excluded by their group
+            while (numLeftInTier > 0 && numGroupExcluded > 0) {
+                int drawIndex = candidates.length - 1 - random.nextInt(numGroupExcluded);
+                int ordinal = candidates[drawIndex];
+                candidates[drawIndex] = candidates[candidates.length - numGroupExcluded--];
 
+                if (isSet(excluded, ordinal)) {
+                    continue;
                 }
+
+                pick(materialData, ordinal, result, excluded, groupExcluded);
+                numLeftInTier--;
             }
 
-            // Check whether enough items were picked (
-            if (result.size() == numSTier + numATier + numBTier + numCTier + numDTier) {
-                Game.getLogger().info("Completed material selection of " + result.size() + " items.");
-                return result;
-            } else {
-                Game.getLogger().info("Material selection incomplete, only picked " + result.size() + " items.");
+            if (numLeftInTier > 0) {
+                throw new IllegalStateException("Could not make material selection, even when disregarding groups.");
             }
         }
 
-        throw new IllegalStateException("Could not make material selection, even when disregarding groups.");
+        return result;
+    }
+
+    /**
+     * Picks the material with the given ordinal, excluding it and its group mates from being picked again
+     * @param materialData  The snapshot of the materials that is picked from
+     * @param ordinal       The ordinal of the material
+     * @param result        The list of picked materials to add the material to
+     * @param excluded      The bitset of materials that can not be picked anymore
+     * @param groupExcluded The bitset of materials that share a group with a picked material
+     */
+    private static void pick(
+            MaterialData materialData,
+            int ordinal,
+            List<Material> result,
+            long[] excluded,
+            long[] groupExcluded
+    ) {
+        result.add(MATERIALS[ordinal]);
+        excluded[ordinal >>> 6] |= 1L << ordinal;
+
+        long[] groupMask = materialData.groupMateMasks()[ordinal];
+        if (groupMask != null) {
+            for (int word = 0; word < ORDINAL_WORDS; word++) {
+                groupExcluded[word] |= groupMask[word];
+            }
+        }
+    }
+
+    /**
+     * Checks whether the bit of the given ordinal is set in the given bitset
+     * @param bitset  The bitset indexed by material ordinal
+     * @param ordinal The ordinal of the material
+     * @return True if the bit is set, false otherwise
+     */
+    private static boolean isSet(long[] bitset, int ordinal) {
+        return (bitset[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Converts the given list of materials to an array of their ordinals
+     * @param materials The list of materials
+     * @return An array of ordinals, without duplicates
+     */
+    private static int[] toOrdinals(List<Material> materials) {
+        return materials.stream().mapToInt(Material::ordinal).distinct().toArray();
+    }
+
+    /**
+     * Converts the given collection of materials to a bitset indexed by material ordinal
+     * @param materials The collection of materials
+     * @return The bitset
+     */
+    private static long[] toOrdinalMask(Collection<Material> materials) {
+        long[] mask = new long[ORDINAL_WORDS];
+        for (Material material : materials) {
+            mask[material.ordinal() >>> 6] |= 1L << material.ordinal();
+        }
+
+        return mask;
     }
 
 }
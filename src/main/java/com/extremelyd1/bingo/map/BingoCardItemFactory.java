@@ -1,99 +1,112 @@
 package com.extremelyd1.bingo.map;
 
 import com.extremelyd1.bingo.BingoCard;
-import com.extremelyd1.bingo.item.BingoItem;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
-import com.extremelyd1.util.ColorUtil;
-import com.extremelyd1.util.FileUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.MapMeta;
 import org.bukkit.map.MapRenderer;
 import org.bukkit.map.MapView;
+import org.bukkit.persistence.PersistentDataType;
 
-import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * Factory class that creates bingo card items. All bingo card items of a team with the same border color share a
+ * single MapView, so that each change to the card of a team only needs to be drawn and rendered once.
+ * Changes are collected during a tick and drawn on the render pipeline, so they never block the main thread.
+ */
 public class BingoCardItemFactory {
 
     /**
-     * The integer color of the default map background
+     * The map view and renderer that are shared by all bingo card items of a team with a certain border color
+     * @param mapView The shared map view
+     * @param renderer The renderer of the map view
      */
-    private static final int MAP_BACKGROUND_COLOR = ColorUtil.getFromRgb(214, 190, 150);
-    /**
-     * The background color of an item if it has not been collected yet
-     */
-    private static final int NOT_COLLECTED_COLOR = ColorUtil.getFromRgb(120, 120, 120);
-    /**
-     * The background color of an item if it has been collected
-     */
-    private static final int COLLECTED_COLOR = ColorUtil.getFromRgb(0, 220, 0);
-    /**
-     * The background color of an item if it has been locked
-     */
-    private static final int LOCKED_COLOR = ColorUtil.getFromRgb(180, 0, 0);
+    private record CardView(MapView mapView, ImageRenderer renderer) {
+    }
 
     /**
-     * The size of the drawable map canvas
-     */
-    private static final int CANVAS_SIZE = 128;
-    /**
-     * The number of pixels of padding around the outside of the card
-     */
-    private static final int CARD_PADDING = 5;
-    /**
-     * The number of pixels of border around the background of the card
+     * An update of the cards of a team that has not been submitted to the render pipeline yet
+     * @param bingoCard The BingoCard instance with the updated information
+     * @param dirtyCells The bitmask of cells that changed
+     * @param fullRedraw Whether the whole card should be redrawn
      */
-    private static final int BACKGROUND_BORDER_SIZE = 3;
+    private record PendingUpdate(BingoCard bingoCard, long dirtyCells, boolean fullRedraw) {
+
+        /**
+         * Merge the given newer update into this update
+         * @param newer The newer update
+         * @return The merged update
+         */
+        private PendingUpdate merge(PendingUpdate newer) {
+            return new PendingUpdate(
+                    newer.bingoCard,
+                    dirtyCells | newer.dirtyCells,
+                    fullRedraw || newer.fullRedraw || bingoCard != newer.bingoCard
+            );
+        }
+    }
+
     /**
-     * The number of pixels of padding between each item
+     * The game instance
      */
-    private static final int ITEM_PADDING = 2;
+    private final Game game;
+
     /**
-     * The size in pixels of each item
+     * The rasterizer that draws the bingo cards
      */
-    private static final int ITEM_SIZE = 22;
+    private final BingoCardRasterizer rasterizer;
     /**
-     * The size in pixels of each image within the items
+     * The pipeline that draws the frames of the cards on worker threads
      */
-    private static final int IMAGE_SIZE = 16;
+    private final CardRenderPipeline pipeline;
+
     /**
-     * The number of pixels of padding between the images and the item border
+     * A map containing for each team the shared card views, keyed by border color
      */
-    private static final int IMAGE_PADDING = 3;
+    private final Map<PlayerTeam, Map<Integer, CardView>> views;
     /**
-     * The size of the squares that show the collections for other teams, otherwise known as indicators
+     * The views of the last game that ended, whose renderers keep showing its final card until the next game starts
      */
-    private static final int TEAM_INDICATOR_SIZE = 2;
+    private final List<CardView> retiredViews;
+
     /**
-     * The padding between the squares of the team indicators
+     * The key of the persistent data that tags bingo card items with the ID of the team of the card
      */
-    private static final int TEAM_INDICATOR_PADDING = 1;
-
+    private final NamespacedKey teamIdKey;
     /**
-     * The game instance
+     * For each player, the inventory slot that last held their bingo card. Slots are only a hint, since the card
+     * may have been moved, so they are verified against the tag of the item before they are used.
      */
-    private final Game game;
+    private final Map<UUID, Integer> cardSlots;
 
     /**
-     * A map containing cached buffered images
+     * The updates of each team that will be submitted at the start of the next tick
      */
-    private final Map<Material, BufferedImage> cachedImages;
-
+    private final Map<PlayerTeam, PendingUpdate> pendingUpdates;
     /**
-     * A map containing for each created ItemStack the corresponding ImageRenderer
+     * Whether the pending updates are scheduled to be submitted
      */
-    private final Map<ItemStack, ImageRenderer> renderers;
+    private boolean isFlushScheduled;
 
     public BingoCardItemFactory(Game game) {
         this.game = game;
-
-        this.cachedImages = new HashMap<>();
-        this.renderers = new HashMap<>();
+        this.rasterizer = new BingoCardRasterizer(game);
+        this.pipeline = new CardRenderPipeline(rasterizer);
+        this.views = new HashMap<>();
+        this.retiredViews = new ArrayList<>();
+        this.teamIdKey = new NamespacedKey(game.getPlugin(), "bingo_card_team");
+        this.cardSlots = new HashMap<>();
+        this.pendingUpdates = new LinkedHashMap<>();
+        this.isFlushScheduled = false;
     }
 
     /**
@@ -104,11 +117,12 @@ public class BingoCardItemFactory {
      * @return The created ItemStack
      */
     public ItemStack create(BingoCard bingoCard, PlayerTeam team) {
-        return create(bingoCard, team, MAP_BACKGROUND_COLOR);
+        return create(bingoCard, team, BingoCardRasterizer.MAP_BACKGROUND_COLOR);
     }
 
     /**
-     * Create an ItemStack from the given bingo card
+     * Create an ItemStack from the given bingo card, which shows the shared map view of the given team and
+     * border color
      *
      * @param bingoCard      The BingoCard to make the itemstack from
      * @param team           The team that this card should be created for
@@ -116,10 +130,108 @@ public class BingoCardItemFactory {
      * @return The created ItemStack
      */
     public ItemStack create(BingoCard bingoCard, PlayerTeam team, int borderColor) {
-        BufferedImage image = drawBingoCardImage(bingoCard, team, borderColor);
+        CardView view = getOrCreateView(bingoCard, team, borderColor);
 
         ItemStack itemStack = new ItemStack(Material.FILLED_MAP, 1);
 
+        MapMeta meta = (MapMeta) itemStack.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(ChatColor.AQUA + "Bingo Card");
+            meta.setMapView(view.mapView());
+            meta.getPersistentDataContainer().set(teamIdKey, PersistentDataType.INTEGER, team.getId());
+
+            itemStack.setItemMeta(meta);
+        }
+
+        return itemStack;
+    }
+
+    /**
+     * Gives the given bingo card item to the given player, remembering the slot it was put in
+     * @param player The player to give the item to
+     * @param itemStack The bingo card item, as created by this factory
+     */
+    public void giveBingoCard(Player player, ItemStack itemStack) {
+        PlayerInventory inventory = player.getInventory();
+
+        int slot = inventory.firstEmpty();
+        if (slot == -1) {
+            // Let the inventory try to stack the item somewhere
+            inventory.addItem(itemStack);
+            return;
+        }
+
+        inventory.setItem(slot, itemStack);
+        cardSlots.put(player.getUniqueId(), slot);
+    }
+
+    /**
+     * Get the slot of a bingo card item in the inventory of the given player.
+     * The remembered slot of the player is checked first, only if it no longer holds a bingo card
+     * the inventory is searched.
+     * @param player The player to find the bingo card of
+     * @return The slot of the bingo card item, or -1 if the player has no bingo card
+     */
+    public int findBingoCardSlot(Player player) {
+        PlayerInventory inventory = player.getInventory();
+
+        Integer slot = cardSlots.get(player.getUniqueId());
+        if (slot != null && isBingoCard(inventory.getItem(slot))) {
+            return slot;
+        }
+
+        ItemStack[] contents = inventory.getContents();
+        for (int i = 0; i < contents.length; i++) {
+            if (isBingoCard(contents[i])) {
+                cardSlots.put(player.getUniqueId(), i);
+                return i;
+            }
+        }
+
+        cardSlots.remove(player.getUniqueId());
+        return -1;
+    }
+
+    /**
+     * Forget the remembered bingo card slot of the given player, should be called when the player no longer has
+     * their card, such as when they die or leave
+     * @param player The player whose slot to forget
+     */
+    public void invalidateBingoCardSlot(Player player) {
+        cardSlots.remove(player.getUniqueId());
+    }
+
+    /**
+     * Checks whether the given item is a bingo card item created by this factory.
+     * Only filled maps have their metadata read, so checking other items is cheap.
+     * @param itemStack The item to check
+     * @return True if the item is a bingo card, false otherwise
+     */
+    public boolean isBingoCard(ItemStack itemStack) {
+        if (itemStack == null || itemStack.getType() != Material.FILLED_MAP || !itemStack.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta meta = itemStack.getItemMeta();
+        return meta != null && meta.getPersistentDataContainer().has(teamIdKey, PersistentDataType.INTEGER);
+    }
+
+    /**
+     * Get the shared view of the given team with the given border color, creating and drawing it if it does not
+     * exist yet
+     * @param bingoCard The BingoCard to draw a newly created view with
+     * @param team The team of the view
+     * @param borderColor The color of the border of the bingo card
+     * @return The shared view
+     */
+    private CardView getOrCreateView(BingoCard bingoCard, PlayerTeam team, int borderColor) {
+        Map<Integer, CardView> teamViews = views.computeIfAbsent(team, t -> new HashMap<>());
+
+        CardView view = teamViews.get(borderColor);
+        if (view != null) {
+            return view;
+        }
+
         MapView mapView = Bukkit.createMap(Bukkit.getWorlds().get(0));
 
         // We get a copy of the list from mapView.getRenderers()
@@ -128,189 +240,150 @@ public class BingoCardItemFactory {
             mapView.removeRenderer(mapRenderer);
         }
 
-        // Create a new renderer, add it to the map view and store it in the map
-        ImageRenderer imageRenderer = new ImageRenderer(image);
+        // Create a new renderer, submit the first frame of the card and add it to the map view
+        ImageRenderer imageRenderer = new ImageRenderer(borderColor);
+        pipeline.submitFull(imageRenderer, rasterizer.snapshot(bingoCard, team));
         mapView.addRenderer(imageRenderer);
 
-        MapMeta meta = (MapMeta) itemStack.getItemMeta();
-        if (meta != null) {
-            meta.setDisplayName(ChatColor.AQUA + "Bingo Card");
-            meta.setMapView(mapView);
+        view = new CardView(mapView, imageRenderer);
+        teamViews.put(borderColor, view);
 
-            itemStack.setItemMeta(meta);
-        }
+        return view;
+    }
 
-        renderers.put(itemStack, imageRenderer);
+    /**
+     * Prepares the drawing of the given bingo card, by creating the tiles of its items ahead of time.
+     * Can be called on any thread.
+     * @param bingoCard The BingoCard to prepare
+     */
+    public void prepare(BingoCard bingoCard) {
+        rasterizer.prepare(bingoCard);
+    }
 
-        return itemStack;
+    /**
+     * Update the image on all bingo card items of the given team with the given BingoCard.
+     * Since the items of a team share their map views, the card is drawn once for each view of the team,
+     * at the start of the next tick.
+     * @param bingoCard The BingoCard instance with the updated information
+     * @param team The team whose cards to update
+     */
+    public void updateBingoCards(BingoCard bingoCard, PlayerTeam team) {
+        scheduleUpdate(team, new PendingUpdate(bingoCard, 0L, true));
     }
 
     /**
-     * Update the image on the given bingo card item stack with the given BingoCard and for the given PlayerTeam
-     * @param itemStack The bingo card ItemStack
+     * Update a single cell in the image on all bingo card items of the given team with the given BingoCard,
+     * so that only the region of that cell is drawn and rendered again. Changes to multiple cells during
+     * the same tick are drawn together.
      * @param bingoCard The BingoCard instance with the updated information
-     * @param team The team that this card corresponds to
+     * @param team The team whose cards to update
+     * @param cellIndex The index of the cell that changed
      */
-    public void updateBingoCardItemStack(ItemStack itemStack, BingoCard bingoCard, PlayerTeam team) {
-        if (!renderers.containsKey(itemStack)) {
+    public void updateBingoCardCell(BingoCard bingoCard, PlayerTeam team, int cellIndex) {
+        scheduleUpdate(team, new PendingUpdate(bingoCard, 1L << cellIndex, false));
+    }
+
+    /**
+     * Merges the given update into the pending update of the given team, and schedules the pending updates
+     * to be submitted at the start of the next tick if they are not scheduled yet
+     * @param team The team whose cards to update
+     * @param update The update of the cards
+     */
+    private void scheduleUpdate(PlayerTeam team, PendingUpdate update) {
+        if (!views.containsKey(team)) {
             return;
         }
 
-        // Get the new image for the map
-        BufferedImage image = drawBingoCardImage(bingoCard, team);
-        // Get the image renderer corresponding to this item stack
-        ImageRenderer imageRenderer = renderers.get(itemStack);
+        pendingUpdates.merge(team, update, PendingUpdate::merge);
 
-        imageRenderer.renderNewImage(image);
-    }
-
-    private BufferedImage drawBingoCardImage(BingoCard bingoCard, PlayerTeam team) {
-        return drawBingoCardImage(bingoCard, team, MAP_BACKGROUND_COLOR);
+        if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            Bukkit.getScheduler().runTask(game.getPlugin(), this::flushUpdates);
+        }
     }
 
     /**
-     * Draw the BufferedImage for the given bingo card, team and border color
-     * @param bingoCard The BingoCard to make the image for
-     * @param team The team that this card should be created for
-     * @param borderColor The color of the border of the bingo card
-     * @return A BufferedImage that represents the current state of the bingo card for the given team
-     * with the given border color
+     * Submits all pending updates to the render pipeline. The snapshots of the cards are taken here on the main
+     * thread, after which the frames are drawn on the worker threads of the pipeline.
      */
-    private BufferedImage drawBingoCardImage(BingoCard bingoCard, PlayerTeam team, int borderColor) {
-        BufferedImage image = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_RGB);
-        // Base layer of map color
-        for (int x = 0; x < CANVAS_SIZE; x++) {
-            for (int y = 0; y < CANVAS_SIZE; y++) {
-                // Test whether we are drawing the border
-                if (x < BACKGROUND_BORDER_SIZE
-                        || x >= CANVAS_SIZE - BACKGROUND_BORDER_SIZE
-                        || y < BACKGROUND_BORDER_SIZE
-                        || y >= CANVAS_SIZE - BACKGROUND_BORDER_SIZE
-                ) {
-                    // Draw the given border color
-                    image.setRGB(
-                            x,
-                            y,
-                            borderColor
-                    );
-                } else {
-                    // Otherwise, draw the default map color
-                    image.setRGB(
-                            x,
-                            y,
-                            MAP_BACKGROUND_COLOR
-                    );
-                }
+    private void flushUpdates() {
+        isFlushScheduled = false;
+
+        for (Map.Entry<PlayerTeam, PendingUpdate> entry : pendingUpdates.entrySet()) {
+            Map<Integer, CardView> teamViews = views.get(entry.getKey());
+            if (teamViews == null) {
+                continue;
             }
-        }
 
-        BingoItem[][] bingoItems = bingoCard.getBingoItems();
-        for (int y = 0; y < bingoItems.length; y++) {
-            for (int x = 0; x < bingoItems[y].length; x++) {
-                BingoItem bingoItem = bingoItems[y][x];
+            PendingUpdate update = entry.getValue();
+            CardSnapshot snapshot = rasterizer.snapshot(update.bingoCard(), entry.getKey());
 
-                int baseColor;
-                if (bingoItem.hasCollected(team)) {
-                    baseColor = COLLECTED_COLOR;
+            for (CardView view : teamViews.values()) {
+                if (update.fullRedraw()) {
+                    pipeline.submitFull(view.renderer(), snapshot);
                 } else {
-                    if (bingoCard.isItemLocked(bingoItem)) {
-                        baseColor = LOCKED_COLOR;
-                    } else {
-                        baseColor = NOT_COLLECTED_COLOR;
-                    }
+                    pipeline.submitCells(view.renderer(), snapshot, update.dirtyCells());
                 }
+            }
+        }
 
-                int backgroundStartX = CARD_PADDING + x * (ITEM_PADDING + ITEM_SIZE);
-                int backgroundStartY = CARD_PADDING + y * (ITEM_PADDING + ITEM_SIZE);
-
-                // Write background
-                for (int imageX = 0; imageX < ITEM_SIZE; imageX++) {
-                    for (int imageY = 0; imageY < ITEM_SIZE; imageY++) {
-                        image.setRGB(
-                                backgroundStartX + imageX,
-                                backgroundStartY + imageY,
-                                baseColor
-                        );
-                    }
-                }
+        pendingUpdates.clear();
+    }
 
-                // Write image
-                BufferedImage itemImage;
+    /**
+     * Retires all views when the game ends. The last pending updates are submitted and the views are forgotten,
+     * so that the next game creates new views for its card. The renderers stay attached, so that the cards that
+     * players still hold after the game keep showing the final card, until {@link #releaseRetiredViews()} is called.
+     */
+    public void retireViews() {
+        flushUpdates();
 
-                if (!cachedImages.containsKey(bingoItem.getMaterial())) {
-                    itemImage = FileUtil.readItemImage(
-                            game.getDataFolder(),
-                            bingoItem.getMaterial()
-                    );
-                    cachedImages.put(bingoItem.getMaterial(), itemImage);
-                } else {
-                    itemImage = cachedImages.get(bingoItem.getMaterial());
-                }
+        for (Map<Integer, CardView> teamViews : views.values()) {
+            for (CardView view : teamViews.values()) {
+                pipeline.release(view.renderer());
+                retiredViews.add(view);
+            }
+        }
 
-                if (itemImage == null) {
-                    Game.getLogger().warning(
-                            "Could not find image file for material: " + bingoItem.getMaterial()
-                    );
-                    continue;
-                }
+        views.clear();
+    }
 
-                for (int imageX = 0; imageX < IMAGE_SIZE; imageX++) {
-                    for (int imageY = 0; imageY < IMAGE_SIZE; imageY++) {
-                        int colorToSet = itemImage.getRGB(imageX, imageY);
-                        int alpha = (colorToSet >>> 24);
-
-                        if (alpha == 0) {
-                            colorToSet = baseColor;
-                        }
-
-                        image.setRGB(
-                                backgroundStartX + IMAGE_PADDING + imageX,
-                                backgroundStartY + IMAGE_PADDING + imageY,
-                                colorToSet
-                        );
-                    }
-                }
+    /**
+     * Releases the views that were retired at the end of the last game, by detaching their renderers from their
+     * map views. Should be called when a new game starts.
+     */
+    public void releaseRetiredViews() {
+        for (CardView view : retiredViews) {
+            view.mapView().removeRenderer(view.renderer());
+        }
 
-                // Check whether we need to draw the team indicators for other teams.
-                // Either if the setting is set to false, or when it is lockout with 1 completion to lock
-                // and there are only 2 teams. Then it is trivial which team completed it when it locks.
-                if (!game.getConfig().notifyOtherTeamCompletions()
-                        || (game.getWinConditionChecker().getCompletionsToLock() == 1
-                        && game.getTeamManager().getNumActiveTeams() == 2)) {
-                    continue;
-                }
+        retiredViews.clear();
+    }
 
-                // Calculate the start positions of the indicators
-                int indicatorStartX = backgroundStartX + TEAM_INDICATOR_PADDING;
-                int indicatorStartY = backgroundStartY + TEAM_INDICATOR_PADDING;
-
-                // Loop over the teams that have collected this item
-                for (PlayerTeam collector : bingoItem.getCollectors()) {
-                    // Skip the team that this card is created for
-                    if (team.equals(collector)) {
-                        continue;
-                    }
-
-                    // Retrieve the color of the pixels we need to set
-                    int colorToSet = ColorUtil.chatColorToInt(collector.getColor());
-
-                    for (int indicatorX = indicatorStartX; indicatorX < indicatorStartX + TEAM_INDICATOR_SIZE; indicatorX++) {
-                        for (int indicatorY = indicatorStartY; indicatorY < indicatorStartY + TEAM_INDICATOR_SIZE; indicatorY++) {
-                            image.setRGB(
-                                    indicatorX,
-                                    indicatorY,
-                                    colorToSet
-                            );
-                        }
-                    }
-
-                    // Advance the start X position of the indicator by the size and padding
-                    indicatorStartX += TEAM_INDICATOR_SIZE + TEAM_INDICATOR_PADDING;
-                }
+    /**
+     * Releases the views of the teams that are not in the given teams, by detaching their renderers from their
+     * map views. Should be called when the cards are rerolled, since the views of the remaining teams are reused.
+     * @param activeTeams The teams whose views are still in use
+     */
+    public void releaseUnusedViews(Iterable<PlayerTeam> activeTeams) {
+        Set<PlayerTeam> usedTeams = new HashSet<>();
+        activeTeams.forEach(usedTeams::add);
+
+        Iterator<Map.Entry<PlayerTeam, Map<Integer, CardView>>> iterator = views.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<PlayerTeam, Map<Integer, CardView>> entry = iterator.next();
+            if (usedTeams.contains(entry.getKey())) {
+                continue;
             }
-        }
 
-        return image;
+            for (CardView view : entry.getValue().values()) {
+                view.mapView().removeRenderer(view.renderer());
+                pipeline.release(view.renderer());
+            }
+
+            iterator.remove();
+            pendingUpdates.remove(entry.getKey());
+        }
     }
 
 }
@@ -0,0 +1,339 @@
+package com.extremelyd1.bingo.map;
+
+import com.extremelyd1.bingo.BingoCard;
+import com.extremelyd1.bingo.BoardShape;
+import com.extremelyd1.bingo.item.BingoItem;
+import com.extremelyd1.game.Game;
+import com.extremelyd1.game.team.PlayerTeam;
+import com.extremelyd1.game.team.TeamManager;
+import com.extremelyd1.util.ColorUtil;
+import org.bukkit.Material;
+import org.bukkit.map.MapPalette;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Draws bingo cards onto rasters of map palette indices of the map canvas size.
+ * The tile of each item, consisting of the background color of its state and its image, is computed and
+ * matched to the map palette once per material and state, so that drawing a card only consists of bulk copies
+ * of precomputed pixel rows and the rasters can be written to the map canvas without any color matching.
+ * Cards are drawn from snapshots that are taken on the main thread, so drawing itself is safe on any thread.
+ */
+public class BingoCardRasterizer {
+
+    /**
+     * The integer color of the default map background
+     */
+    public static final int MAP_BACKGROUND_COLOR = ColorUtil.getFromRgb(214, 190, 150);
+    /**
+     * The background color of an item if it has not been collected yet
+     */
+    private static final int NOT_COLLECTED_COLOR = ColorUtil.getFromRgb(120, 120, 120);
+    /**
+     * The background color of an item if it has been collected
+     */
+    private static final int COLLECTED_COLOR = ColorUtil.getFromRgb(0, 220, 0);
+    /**
+     * The background color of an item if it has been locked
+     */
+    private static final int LOCKED_COLOR = ColorUtil.getFromRgb(180, 0, 0);
+
+    /**
+     * The state of an item that has not been collected yet
+     */
+    private static final int STATE_NOT_COLLECTED = 0;
+    /**
+     * The state of an item that has been collected
+     */
+    private static final int STATE_COLLECTED = 1;
+    /**
+     * The state of an item that has been locked
+     */
+    private static final int STATE_LOCKED = 2;
+    /**
+     * The background colors of the items, indexed by state
+     */
+    private static final int[] STATE_COLORS = {NOT_COLLECTED_COLOR, COLLECTED_COLOR, LOCKED_COLOR};
+
+    /**
+     * The size of the drawable map canvas
+     */
+    public static final int CANVAS_SIZE = CardLayout.CANVAS_SIZE;
+    /**
+     * The number of pixels of border around the background of the card
+     */
+    private static final int BACKGROUND_BORDER_SIZE = 3;
+
+    /**
+     * The game instance
+     */
+    private final Game game;
+
+    /**
+     * The atlas of the images of the items
+     */
+    private final ItemIconAtlas iconAtlas;
+
+    /**
+     * For each layout, a map containing for each material the precomputed tiles indexed by state
+     */
+    private final Map<CardLayout, Map<Material, byte[][]>> tiles;
+    /**
+     * A map containing for each border color the precomputed background of the card
+     */
+    private final Map<Integer, byte[]> backgrounds;
+    /**
+     * The map colors of the teams matched to the map palette, indexed by team ID
+     */
+    private final byte[] teamPaletteColors;
+
+    public BingoCardRasterizer(Game game) {
+        this.game = game;
+
+        // Start loading the images of the items in the background right away
+        this.iconAtlas = new ItemIconAtlas(game.getDataFolder());
+
+        this.tiles = new ConcurrentHashMap<>();
+        this.backgrounds = new ConcurrentHashMap<>();
+
+        this.teamPaletteColors = new byte[TeamManager.MAX_TEAMS];
+        for (PlayerTeam team : game.getTeamManager().getAvailableTeams()) {
+            teamPaletteColors[team.getId()] = matchColor(team.getMapColor());
+        }
+    }
+
+    /**
+     * Take a snapshot of the given bingo card for the given team, containing everything that is needed to draw it.
+     * Should be called on the main thread, after which the snapshot can be drawn on any thread.
+     * @param bingoCard The BingoCard to take a snapshot of
+     * @param team The team that this card should be drawn for
+     * @return The snapshot of the card
+     */
+    public CardSnapshot snapshot(BingoCard bingoCard, PlayerTeam team) {
+        BoardShape shape = bingoCard.getShape();
+        int numCells = shape.getNumCells();
+        long collectedMask = bingoCard.getCollectedMask(team);
+        long lockedMask = bingoCard.getLockedMask();
+
+        // Check whether we need to draw the team indicators for other teams.
+        // Either if the setting is set to false, or when it is lockout with 1 completion to lock
+        // and there are only 2 teams. Then it is trivial which team completed it when it locks.
+        boolean drawIndicators = game.getConfig().notifyOtherTeamCompletions()
+                && !(game.getWinConditionChecker().getCompletionsToLock() == 1
+                && game.getTeamManager().getNumActiveTeams() == 2);
+
+        // At most all other teams can have an indicator in a single item
+        int indicatorSize = CardLayout.of(shape).getIndicatorSize(game.getTeamManager().getNumActiveTeams() - 1);
+
+        Material[] materials = new Material[numCells];
+        int[] states = new int[numCells];
+        byte[][] indicatorColors = new byte[numCells][];
+        for (int cellIndex = 0; cellIndex < numCells; cellIndex++) {
+            BingoItem bingoItem = bingoCard.getBingoItem(cellIndex);
+            long cellBit = 1L << cellIndex;
+
+            materials[cellIndex] = bingoItem.getMaterial();
+
+            if ((collectedMask & cellBit) != 0) {
+                states[cellIndex] = STATE_COLLECTED;
+            } else if ((lockedMask & cellBit) != 0) {
+                states[cellIndex] = STATE_LOCKED;
+            } else {
+                states[cellIndex] = STATE_NOT_COLLECTED;
+            }
+
+            if (!drawIndicators) {
+                indicatorColors[cellIndex] = new byte[0];
+                continue;
+            }
+
+            // The colors of the teams that have collected this item, in order of collection,
+            // skipping the team that this card is drawn for
+            byte[] colors = new byte[bingoItem.getNumCollectors()];
+            int numColors = 0;
+            for (PlayerTeam collector : bingoItem.getCollectors()) {
+                if (!team.equals(collector)) {
+                    colors[numColors++] = teamPaletteColors[collector.getId()];
+                }
+            }
+            indicatorColors[cellIndex] = Arrays.copyOf(colors, numColors);
+        }
+
+        return new CardSnapshot(shape, materials, states, indicatorColors, indicatorSize);
+    }
+
+    /**
+     * Draw the given snapshot of a bingo card with the given border color onto the given raster
+     * @param snapshot The snapshot of the bingo card to draw
+     * @param borderColor The color of the border of the bingo card
+     * @param raster The raster of CANVAS_SIZE * CANVAS_SIZE map palette indices in row-major order to draw onto
+     */
+    public void draw(CardSnapshot snapshot, int borderColor, byte[] raster) {
+        byte[] background = backgrounds.computeIfAbsent(borderColor, BingoCardRasterizer::createBackground);
+        System.arraycopy(background, 0, raster, 0, background.length);
+
+        for (int cellIndex = 0; cellIndex < snapshot.shape().getNumCells(); cellIndex++) {
+            drawCell(snapshot, raster, cellIndex);
+        }
+    }
+
+    /**
+     * Draw a single cell of the given snapshot of a bingo card onto the given raster, leaving the rest of the
+     * raster untouched
+     * @param snapshot The snapshot of the bingo card to draw
+     * @param raster The raster of CANVAS_SIZE * CANVAS_SIZE map palette indices in row-major order to draw onto
+     * @param cellIndex The index of the cell to draw
+     */
+    public void drawCell(CardSnapshot snapshot, byte[] raster, int cellIndex) {
+        BoardShape shape = snapshot.shape();
+        CardLayout layout = CardLayout.of(shape);
+        Map<Material, byte[][]> layoutTiles = tiles.computeIfAbsent(layout, l -> new ConcurrentHashMap<>());
+        int itemSize = layout.getItemSize();
+
+        byte[][] materialTiles = layoutTiles.computeIfAbsent(
+                snapshot.materials()[cellIndex],
+                material -> createTiles(material, layout)
+        );
+        byte[] tile = materialTiles[snapshot.states()[cellIndex]];
+
+        int backgroundStartX = layout.getItemStart(shape.getX(cellIndex));
+        int backgroundStartY = layout.getItemStart(shape.getY(cellIndex));
+
+        // Copy the tile row by row into the raster
+        for (int tileY = 0; tileY < itemSize; tileY++) {
+            System.arraycopy(
+                    tile,
+                    tileY * itemSize,
+                    raster,
+                    (backgroundStartY + tileY) * CANVAS_SIZE + backgroundStartX,
+                    itemSize
+            );
+        }
+
+        int indicatorSize = snapshot.indicatorSize();
+        int[] indicatorSlots = layout.getIndicatorSlots(indicatorSize);
+
+        // Place each indicator of the other teams in the next slot along the border of the item
+        byte[] indicatorColors = snapshot.indicatorColors()[cellIndex];
+        for (int i = 0; i < indicatorColors.length; i++) {
+            // Reuse the slots from the start if there are more indicators than slots
+            int slot = 2 * (i % (indicatorSlots.length / 2));
+            int indicatorStartX = backgroundStartX + indicatorSlots[slot];
+            int indicatorStartY = backgroundStartY + indicatorSlots[slot + 1];
+
+            for (int indicatorY = indicatorStartY; indicatorY < indicatorStartY + indicatorSize; indicatorY++) {
+                int rowStart = indicatorY * CANVAS_SIZE;
+                Arrays.fill(
+                        raster,
+                        rowStart + indicatorStartX,
+                        rowStart + indicatorStartX + indicatorSize,
+                        indicatorColors[i]
+                );
+            }
+        }
+    }
+
+    /**
+     * Creates the tiles of all items of the given bingo card ahead of time, so that drawing the card for the
+     * first time does not need to load any images. Can be called on any thread.
+     * @param bingoCard The BingoCard to create the tiles for
+     */
+    public void prepare(BingoCard bingoCard) {
+        CardLayout layout = CardLayout.of(bingoCard.getShape());
+        Map<Material, byte[][]> layoutTiles = tiles.computeIfAbsent(layout, l -> new ConcurrentHashMap<>());
+
+        for (int cellIndex = 0; cellIndex < bingoCard.getNumCells(); cellIndex++) {
+            layoutTiles.computeIfAbsent(
+                    bingoCard.getBingoItem(cellIndex).getMaterial(),
+                    material -> createTiles(material, layout)
+            );
+        }
+    }
+
+    /**
+     * Creates the background of the card with the given border color
+     * @param borderColor The color of the border of the card
+     * @return A raster of CANVAS_SIZE * CANVAS_SIZE map palette indices in row-major order
+     */
+    private static byte[] createBackground(int borderColor) {
+        byte[] background = new byte[CANVAS_SIZE * CANVAS_SIZE];
+        Arrays.fill(background, matchColor(borderColor));
+
+        byte backgroundColor = matchColor(MAP_BACKGROUND_COLOR);
+
+        // Fill everything within the border with the default map color
+        for (int y = BACKGROUND_BORDER_SIZE; y < CANVAS_SIZE - BACKGROUND_BORDER_SIZE; y++) {
+            Arrays.fill(
+                    background,
+                    y * CANVAS_SIZE + BACKGROUND_BORDER_SIZE,
+                    (y + 1) * CANVAS_SIZE - BACKGROUND_BORDER_SIZE,
+                    backgroundColor
+            );
+        }
+
+        return background;
+    }
+
+    /**
+     * Creates the tiles of the given material for each state, which consist of the background color of the state
+     * with the image of the material scaled to the image size of the layout drawn over it
+     * @param material The material to create the tiles for
+     * @param layout The layout that determines the size of the tiles
+     * @return An array of tiles of itemSize * itemSize map palette indices in row-major order, indexed by state
+     */
+    private byte[][] createTiles(Material material, CardLayout layout) {
+        int itemSize = layout.getItemSize();
+        int imageSize = layout.getImageSize();
+        int imagePadding = layout.getImagePadding();
+
+        byte[][] stateTiles = new byte[STATE_COLORS.length][];
+        for (int state = 0; state < STATE_COLORS.length; state++) {
+            byte[] tile = new byte[itemSize * itemSize];
+            Arrays.fill(tile, matchColor(STATE_COLORS[state]));
+            stateTiles[state] = tile;
+        }
+
+        byte[] icon = new byte[ItemIconAtlas.ICON_SIZE * ItemIconAtlas.ICON_SIZE];
+        if (!iconAtlas.copyIcon(material, icon)) {
+            Game.getLogger().warning(
+                    "Could not find image file for material: " + material
+            );
+
+            return stateTiles;
+        }
+
+        // Scale the icon to the size of the layout by sampling the nearest icon pixel,
+        // the icon already consists of palette indices so no colors need to be matched
+        for (int imageY = 0; imageY < imageSize; imageY++) {
+            int iconRowStart = imageY * ItemIconAtlas.ICON_SIZE / imageSize * ItemIconAtlas.ICON_SIZE;
+            for (int imageX = 0; imageX < imageSize; imageX++) {
+                byte paletteColor = icon[iconRowStart + imageX * ItemIconAtlas.ICON_SIZE / imageSize];
+
+                // Transparent pixels keep the background color of the state
+                if (paletteColor == ItemIconAtlas.TRANSPARENT) {
+                    continue;
+                }
+
+                int tileIndex = (imagePadding + imageY) * itemSize + imagePadding + imageX;
+                for (byte[] tile : stateTiles) {
+                    tile[tileIndex] = paletteColor;
+                }
+            }
+        }
+
+        return stateTiles;
+    }
+
+    /**
+     * Matches the given RGB color to the closest color in the map palette
+     * @param rgb The RGB color, any alpha bits are ignored
+     * @return The index of the color in the map palette
+     */
+    private static byte matchColor(int rgb) {
+        return MapPalette.matchColor(new Color(rgb & 0xFFFFFF));
+    }
+
+}
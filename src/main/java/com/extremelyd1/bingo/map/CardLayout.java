@@ -0,0 +1,219 @@
+package com.extremelyd1.bingo.map;
+
+import com.extremelyd1.bingo.BoardShape;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the pixel layout of a bingo card of a given board size on the map canvas
+ */
+public class CardLayout {
+
+    /**
+     * The size of the drawable map canvas
+     */
+    public static final int CANVAS_SIZE = 128;
+    /**
+     * The minimum number of pixels of padding around the outside of the card
+     */
+    private static final int CARD_PADDING = 5;
+    /**
+     * The number of pixels of padding between each item
+     */
+    private static final int ITEM_PADDING = 2;
+    /**
+     * The size in pixels of the source images of the items
+     */
+    private static final int SOURCE_IMAGE_SIZE = ItemIconAtlas.ICON_SIZE;
+    /**
+     * The number of pixels of padding between the images and the item border if the images fit at their
+     * source size (or a multiple of it)
+     */
+    private static final int IMAGE_PADDING = 3;
+    /**
+     * The number of pixels of padding between the images and the item border if the images need to be
+     * scaled down to fit
+     */
+    private static final int MIN_IMAGE_PADDING = 1;
+    /**
+     * The size of the squares that show the collections for other teams, otherwise known as indicators,
+     * if they all fit in the item at this size
+     */
+    private static final int LARGE_INDICATOR_SIZE = 2;
+    /**
+     * The size of the indicators if the larger indicators do not all fit in the item
+     */
+    private static final int SMALL_INDICATOR_SIZE = 1;
+    /**
+     * The padding between the indicators and between the indicators and the item border
+     */
+    private static final int INDICATOR_PADDING = 1;
+
+    /**
+     * The cached layouts, indexed by board size
+     */
+    private static final CardLayout[] LAYOUTS = createLayouts();
+
+    /**
+     * The size in pixels of each item
+     */
+    private final int itemSize;
+    /**
+     * The number of pixels between the edge of the canvas and the first item
+     */
+    private final int cardOffset;
+    /**
+     * The size in pixels of each image within the items
+     */
+    private final int imageSize;
+    /**
+     * The number of pixels of padding between the images and the item border
+     */
+    private final int imagePadding;
+
+    /**
+     * The positions of the large indicators relative to the item, as consecutive (x, y) pairs
+     */
+    private final int[] largeIndicatorSlots;
+    /**
+     * The positions of the small indicators relative to the item, as consecutive (x, y) pairs
+     */
+    private final int[] smallIndicatorSlots;
+
+    private CardLayout(int boardSize) {
+        int availableSize = CANVAS_SIZE - 2 * CARD_PADDING - (boardSize - 1) * ITEM_PADDING;
+        this.itemSize = availableSize / boardSize;
+
+        // Center the items on the canvas, since the available size might not divide evenly
+        int usedSize = boardSize * itemSize + (boardSize - 1) * ITEM_PADDING;
+        this.cardOffset = (CANVAS_SIZE - usedSize) / 2;
+
+        // Use the largest integer multiple of the source size that fits, to keep the images crisp,
+        // or scale the images down if they do not fit at their source size
+        int imageScale = (itemSize - 2 * IMAGE_PADDING) / SOURCE_IMAGE_SIZE;
+        if (imageScale >= 1) {
+            this.imageSize = imageScale * SOURCE_IMAGE_SIZE;
+        } else {
+            this.imageSize = itemSize - 2 * MIN_IMAGE_PADDING;
+        }
+        this.imagePadding = (itemSize - imageSize) / 2;
+
+        this.largeIndicatorSlots = createIndicatorSlots(LARGE_INDICATOR_SIZE);
+        this.smallIndicatorSlots = createIndicatorSlots(SMALL_INDICATOR_SIZE);
+    }
+
+    /**
+     * Creates the positions of the indicators of the given size in a ring along the border of the item,
+     * going clockwise from the top left corner. Placing them along the border keeps the image visible for as
+     * long as possible when many teams have collected an item.
+     * @param indicatorSize The size of the indicators
+     * @return The positions relative to the item, as consecutive (x, y) pairs
+     */
+    private int[] createIndicatorSlots(int indicatorSize) {
+        // The positions along a single edge of the item
+        List<Integer> edge = new ArrayList<>();
+        int lastStart = itemSize - INDICATOR_PADDING - indicatorSize;
+        for (int position = INDICATOR_PADDING; position <= lastStart; position += indicatorSize + INDICATOR_PADDING) {
+            edge.add(position);
+        }
+
+        int first = edge.get(0);
+        int last = edge.get(edge.size() - 1);
+
+        List<Integer> slots = new ArrayList<>();
+        // Top edge, left to right
+        for (int position : edge) {
+            slots.add(position);
+            slots.add(first);
+        }
+        // Right edge, top to bottom, without the top right corner
+        for (int i = 1; i < edge.size(); i++) {
+            slots.add(last);
+            slots.add(edge.get(i));
+        }
+        // Bottom edge, right to left, without the bottom right corner
+        for (int i = edge.size() - 2; i >= 0; i--) {
+            slots.add(edge.get(i));
+            slots.add(last);
+        }
+        // Left edge, bottom to top, without both left corners
+        for (int i = edge.size() - 2; i >= 1; i--) {
+            slots.add(first);
+            slots.add(edge.get(i));
+        }
+
+        return slots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Get the layout for a card with the given board shape
+     * @param shape The shape of the board
+     * @return The layout of the card
+     */
+    public static CardLayout of(BoardShape shape) {
+        return LAYOUTS[shape.getSize()];
+    }
+
+    /**
+     * Creates the layouts for all supported board sizes
+     * @return An array of layouts indexed by board size
+     */
+    private static CardLayout[] createLayouts() {
+        CardLayout[] layouts = new CardLayout[BoardShape.MAX_SIZE + 1];
+        for (int size = BoardShape.MIN_SIZE; size <= BoardShape.MAX_SIZE; size++) {
+            layouts[size] = new CardLayout(size);
+        }
+
+        return layouts;
+    }
+
+    /**
+     * Get the x or y position on the canvas at which the item in the given column or row starts
+     * @param index The column or row of the item
+     * @return The position in pixels
+     */
+    public int getItemStart(int index) {
+        return cardOffset + index * (ITEM_PADDING + itemSize);
+    }
+
+    public int getItemSize() {
+        return itemSize;
+    }
+
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    public int getImagePadding() {
+        return imagePadding;
+    }
+
+    /**
+     * Get the size of the indicators to use when at most the given number of indicators are drawn in an item
+     * @param maxNumIndicators The maximum number of indicators in a single item
+     * @return The size of the indicators in pixels
+     */
+    public int getIndicatorSize(int maxNumIndicators) {
+        if (maxNumIndicators <= largeIndicatorSlots.length / 2) {
+            return LARGE_INDICATOR_SIZE;
+        }
+
+        return SMALL_INDICATOR_SIZE;
+    }
+
+    /**
+     * Get the positions of the indicators of the given size relative to the item. If there are more indicators
+     * than positions, the positions should be reused from the start.
+     * @param indicatorSize The size of the indicators, as given by {@link #getIndicatorSize(int)}
+     * @return The positions, as consecutive (x, y) pairs
+     */
+    public int[] getIndicatorSlots(int indicatorSize) {
+        if (indicatorSize == LARGE_INDICATOR_SIZE) {
+            return largeIndicatorSlots;
+        }
+
+        return smallIndicatorSlots;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.extremelyd1.bingo.map;
+
+import com.extremelyd1.bingo.BoardShape;
+import com.extremelyd1.game.Game;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Draws frames of bingo cards on a small pool of worker threads and publishes them to their renderers.
+ * Frames for the same renderer are drawn in the order in which they were submitted, since each frame that only
+ * redraws some cells is drawn on top of a copy of the previous frame.
+ */
+public class CardRenderPipeline {
+
+    /**
+     * The number of worker threads that draw the frames
+     */
+    private static final int NUM_THREADS = 2;
+
+    /**
+     * The rasterizer that draws the bingo cards
+     */
+    private final BingoCardRasterizer rasterizer;
+    /**
+     * The executor service of the worker threads
+     */
+    private final ExecutorService executor;
+    /**
+     * For each renderer, the future of the last frame that was submitted for it.
+     * Only accessed from the main thread.
+     */
+    private final Map<ImageRenderer, CompletableFuture<Void>> lastFrames;
+
+    public CardRenderPipeline(BingoCardRasterizer rasterizer) {
+        this.rasterizer = rasterizer;
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                NUM_THREADS,
+                NUM_THREADS,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>()
+        );
+        threadPoolExecutor.setThreadFactory(runnable -> {
+            Thread thread = new Thread(runnable, "Bingo Card Renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = threadPoolExecutor;
+
+        this.lastFrames = new HashMap<>();
+    }
+
+    /**
+     * Submits a frame that redraws the whole card of the given snapshot for the given renderer.
+     * Should be called on the main thread.
+     * @param renderer The renderer to publish the frame to
+     * @param snapshot The snapshot of the bingo card to draw
+     */
+    public void submitFull(ImageRenderer renderer, CardSnapshot snapshot) {
+        submit(renderer, () -> {
+            byte[] raster = new byte[BingoCardRasterizer.CANVAS_SIZE * BingoCardRasterizer.CANVAS_SIZE];
+            rasterizer.draw(snapshot, renderer.getBorderColor(), raster);
+
+            renderer.publishFrame(raster);
+        });
+    }
+
+    /**
+     * Submits a frame that only redraws the given cells of the card of the given snapshot for the given renderer,
+     * or the whole card if the renderer has no frame yet. Should be called on the main thread.
+     * @param renderer The renderer to publish the frame to
+     * @param snapshot The snapshot of the bingo card to draw
+     * @param dirtyCells The bitmask of cells to redraw
+     */
+    public void submitCells(ImageRenderer renderer, CardSnapshot snapshot, long dirtyCells) {
+        submit(renderer, () -> {
+            byte[] previousRaster = renderer.getLatestRaster();
+            if (previousRaster == null) {
+                byte[] raster = new byte[BingoCardRasterizer.CANVAS_SIZE * BingoCardRasterizer.CANVAS_SIZE];
+                rasterizer.draw(snapshot, renderer.getBorderColor(), raster);
+
+                renderer.publishFrame(raster);
+                return;
+            }
+
+            // Published rasters are never modified, so draw the cells on a copy of the previous frame
+            byte[] raster = previousRaster.clone();
+
+            BoardShape shape = snapshot.shape();
+            CardLayout layout = CardLayout.of(shape);
+            int itemSize = layout.getItemSize();
+
+            int[] dirtyRegions = new int[Long.bitCount(dirtyCells) * 4];
+            int offset = 0;
+            for (long cells = dirtyCells; cells != 0; cells &= cells - 1) {
+                int cellIndex = Long.numberOfTrailingZeros(cells);
+                rasterizer.drawCell(snapshot, raster, cellIndex);
+
+                dirtyRegions[offset++] = layout.getItemStart(shape.getX(cellIndex));
+                dirtyRegions[offset++] = layout.getItemStart(shape.getY(cellIndex));
+                dirtyRegions[offset++] = itemSize;
+                dirtyRegions[offset++] = itemSize;
+            }
+
+            renderer.publishFrame(raster, dirtyRegions);
+        });
+    }
+
+    /**
+     * Submits the given frame task for the given renderer, to run after the last submitted frame of the renderer
+     * @param renderer The renderer the frame is for
+     * @param task The task that draws and publishes the frame
+     */
+    private void submit(ImageRenderer renderer, Runnable task) {
+        // Catch exceptions, since a failed frame would otherwise also cancel all subsequent frames of the renderer
+        Runnable safeTask = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Game.getLogger().log(Level.SEVERE, "Could not draw bingo card", e);
+            }
+        };
+
+        CompletableFuture<Void> lastFrame = lastFrames.get(renderer);
+        CompletableFuture<Void> frame;
+        if (lastFrame == null || lastFrame.isDone()) {
+            frame = CompletableFuture.runAsync(safeTask, executor);
+        } else {
+            frame = lastFrame.thenRunAsync(safeTask, executor);
+        }
+
+        lastFrames.put(renderer, frame);
+    }
+
+    /**
+     * Releases the given renderer, after which no more frames will be submitted for it
+     * @param renderer The renderer to release
+     */
+    public void release(ImageRenderer renderer) {
+        lastFrames.remove(renderer);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.extremelyd1.bingo.map;
+
+import com.extremelyd1.bingo.BoardShape;
+import org.bukkit.Material;
+
+/**
+ * Immutable snapshot of everything that is needed to draw the bingo card of a single team, taken on the main
+ * thread so that the card can be drawn on another thread while the game continues to change the card
+ * @param shape The shape of the board of the card
+ * @param materials The material of each cell, indexed by cell index
+ * @param states The state of each cell for the team, indexed by cell index
+ * @param indicatorColors The map palette colors of the indicators of the other teams that collected each cell,
+ *                        indexed by cell index, empty if no indicators should be drawn
+ * @param indicatorSize The size of the indicators in pixels
+ */
+record CardSnapshot(
+        BoardShape shape,
+        Material[] materials,
+        int[] states,
+        byte[][] indicatorColors,
+        int indicatorSize
+) {
+}
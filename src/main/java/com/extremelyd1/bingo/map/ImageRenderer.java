@@ -5,44 +5,154 @@ import org.bukkit.map.MapCanvas;
 import org.bukkit.map.MapRenderer;
 import org.bukkit.map.MapView;
 
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Custom map renderer, that renders the map exactly once
+ * Custom map renderer, that renders its image once each time a new frame of the image has been published.
+ * Frames are drawn on other threads and published atomically, after which the next render on the main thread
+ * writes them to the map canvas. If only some regions of the image changed, only those regions are written
+ * to the map canvas, which saves the per-pixel work on the server for the rest of the canvas.
  */
 public class ImageRenderer extends MapRenderer {
 
     /**
-     * The image to render
+     * The size of the map canvas
      */
-    private BufferedImage image;
+    private static final int CANVAS_SIZE = BingoCardRasterizer.CANVAS_SIZE;
     /**
-     * Whether this image has been rendered already
+     * The maximum number of changed regions that are tracked between renders, after which the whole image
+     * is rendered instead
      */
-    private boolean isRendered;
+    private static final int MAX_DIRTY_REGIONS = 16;
 
-    public ImageRenderer(BufferedImage image) {
-        this.image = image;
-        this.isRendered = false;
+    /**
+     * A frame of the image that has not been rendered yet
+     * @param raster The image as map palette indices in row-major order, which is never modified after publishing
+     * @param dirtyRegions The regions of the image that changed since the last rendered frame, as consecutive
+     *                     (x, y, width, height) values, or null if the whole image should be rendered
+     */
+    private record Frame(byte[] raster, int[] dirtyRegions) {
+
+        /**
+         * Merge the given newer frame into this frame, such that the regions that changed in either frame
+         * are rendered
+         * @param newer The newer frame
+         * @return The merged frame
+         */
+        private Frame merge(Frame newer) {
+            if (dirtyRegions == null || newer.dirtyRegions == null
+                    || dirtyRegions.length + newer.dirtyRegions.length > MAX_DIRTY_REGIONS * 4) {
+                return new Frame(newer.raster, null);
+            }
+
+            int[] mergedRegions = Arrays.copyOf(dirtyRegions, dirtyRegions.length + newer.dirtyRegions.length);
+            System.arraycopy(newer.dirtyRegions, 0, mergedRegions, dirtyRegions.length, newer.dirtyRegions.length);
+
+            return new Frame(newer.raster, mergedRegions);
+        }
     }
 
     /**
-     * Renders the given image onto the map
-     * @param image The image to render
+     * The color of the border of the bingo card drawn by this renderer
+     */
+    private final int borderColor;
+    /**
+     * The latest published frame that has not been rendered yet, or null if there is none
+     */
+    private final AtomicReference<Frame> pendingFrame;
+    /**
+     * The raster of the latest published frame, or null if no frame has been published yet
      */
-    public void renderNewImage(BufferedImage image) {
-        this.image = image;
-        this.isRendered = false;
+    private volatile byte[] latestRaster;
+
+    public ImageRenderer(int borderColor) {
+        this.borderColor = borderColor;
+        this.pendingFrame = new AtomicReference<>();
+    }
+
+    public int getBorderColor() {
+        return borderColor;
+    }
+
+    /**
+     * Get the raster of the latest published frame, which can be copied to draw the next frame onto.
+     * The returned raster should not be modified.
+     * @return The map palette indices of the image in row-major order, or null if no frame has been published
+     */
+    public byte[] getLatestRaster() {
+        return latestRaster;
+    }
+
+    /**
+     * Publishes a new frame of which the whole image should be rendered
+     * @param raster The image as map palette indices in row-major order, which should not be modified afterwards
+     */
+    public void publishFrame(byte[] raster) {
+        publishFrame(new Frame(raster, null));
+    }
+
+    /**
+     * Publishes a new frame of which only the given regions changed since the previously published frame
+     * @param raster The image as map palette indices in row-major order, which should not be modified afterwards
+     * @param dirtyRegions The regions of the image that changed, as consecutive (x, y, width, height) values
+     */
+    public void publishFrame(byte[] raster, int[] dirtyRegions) {
+        publishFrame(new Frame(raster, dirtyRegions));
+    }
+
+    /**
+     * Publishes the given frame, merging it with the pending frame if that has not been rendered yet
+     * @param frame The frame to publish
+     */
+    private void publishFrame(Frame frame) {
+        latestRaster = frame.raster();
+        pendingFrame.accumulateAndGet(frame, (pending, newer) -> pending == null ? newer : pending.merge(newer));
     }
 
     @Override
     public void render(MapView mapView, MapCanvas mapCanvas, Player player) {
-        if (isRendered) {
+        Frame frame = pendingFrame.getAndSet(null);
+        if (frame == null) {
             return;
         }
 
-        mapCanvas.drawImage(0, 0, image);
+        // The raster already consists of palette indices, so the pixels can be set without matching colors
+        int[] dirtyRegions = frame.dirtyRegions();
+        if (dirtyRegions == null) {
+            renderRegion(mapCanvas, frame.raster(), 0, 0, CANVAS_SIZE, CANVAS_SIZE);
+            return;
+        }
 
-        isRendered = true;
+        // Writing only the dirty regions skips the per-pixel work for the rest of the canvas. The map packets are
+        // the same as for a full render, since setPixel already only marks pixels that changed as dirty
+        for (int offset = 0; offset < dirtyRegions.length; offset += 4) {
+            renderRegion(
+                    mapCanvas,
+                    frame.raster(),
+                    dirtyRegions[offset],
+                    dirtyRegions[offset + 1],
+                    dirtyRegions[offset + 2],
+                    dirtyRegions[offset + 3]
+            );
+        }
+    }
+
+    /**
+     * Writes the given region of the given raster to the given map canvas
+     * @param mapCanvas The canvas to write to
+     * @param raster The raster to write from
+     * @param x The x position of the top left corner of the region
+     * @param y The y position of the top left corner of the region
+     * @param width The width of the region
+     * @param height The height of the region
+     */
+    private static void renderRegion(MapCanvas mapCanvas, byte[] raster, int x, int y, int width, int height) {
+        for (int canvasY = y; canvasY < y + height; canvasY++) {
+            int rowStart = canvasY * CANVAS_SIZE;
+            for (int canvasX = x; canvasX < x + width; canvasX++) {
+                mapCanvas.setPixel(canvasX, canvasY, raster[rowStart + canvasX]);
+            }
+        }
     }
 }
@@ -0,0 +1,430 @@
+package com.extremelyd1.bingo.map;
+
+import com.extremelyd1.game.Game;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.map.MapPalette;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Atlas of the images of the items that are drawn on the bingo cards, stored as a single file of
+ * ICON_SIZE * ICON_SIZE map palette indices per icon, indexed by material ordinal.
+ * The atlas file is memory-mapped, so the icons stay off-heap and looking up an icon is a constant-time
+ * offset calculation. If the atlas is missing or out of date, it is built from the images zip (or from loose
+ * PNG files if there is no zip) in the background when the plugin is enabled.
+ * <p>
+ * Format of the atlas file:
+ * <pre>
+ * int     magic
+ * int     version
+ * long    fingerprint of the source images and materials
+ * int     icon size
+ * int     number of material ordinals
+ * int[]   for each material ordinal, the index of its icon or -1 if it has no icon
+ * byte[]  the icons, each consisting of icon size * icon size map palette indices in row-major order
+ * </pre>
+ */
+public class ItemIconAtlas {
+
+    /**
+     * The size in pixels of each icon in the atlas
+     */
+    public static final int ICON_SIZE = 16;
+    /**
+     * The map palette index of transparent pixels
+     */
+    public static final byte TRANSPARENT = MapPalette.TRANSPARENT;
+
+    /**
+     * The version of the format of the atlas, should be increased whenever the format changes
+     */
+    private static final int ATLAS_VERSION = 1;
+    /**
+     * The magic number at the start of the atlas file
+     */
+    private static final int ATLAS_MAGIC = 0x42494341;
+    /**
+     * The number of bytes in the header of the atlas file, before the index
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    /**
+     * The number of bytes of each icon in the atlas
+     */
+    private static final int ICON_BYTES = ICON_SIZE * ICON_SIZE;
+
+    /**
+     * The path of the directory with the images relative to the data folder
+     */
+    private static final String IMAGES_PATH = "item_data/images";
+    /**
+     * The name of the zip that contains the images
+     */
+    private static final String IMAGES_ZIP_NAME = "images.zip";
+    /**
+     * The name of the atlas file
+     */
+    private static final String ATLAS_FILE_NAME = "icons.atlas";
+    /**
+     * The file extension of the images
+     */
+    private static final String IMAGE_EXTENSION = ".png";
+
+    /**
+     * The number of materials that exist, used to size the index of the atlas
+     */
+    private static final int NUM_MATERIALS = Material.values().length;
+
+    /**
+     * The future of the mapped atlas file, which completes with null if the atlas could not be loaded
+     */
+    private final CompletableFuture<MappedByteBuffer> atlas;
+
+    /**
+     * Starts loading the atlas from the given data folder in the background, building it first if needed
+     * @param dataFolder The data folder of the plugin
+     */
+    public ItemIconAtlas(File dataFolder) {
+        File imagesDir = new File(dataFolder, IMAGES_PATH);
+
+        this.atlas = CompletableFuture.supplyAsync(() -> load(imagesDir)).exceptionally(e -> {
+            Game.getLogger().log(Level.WARNING, "Could not load item image atlas", e);
+            return null;
+        });
+    }
+
+    /**
+     * Copies the icon of the given material into the given array, waiting for the atlas to be loaded if it is
+     * still loading. The main thread is never allowed to wait for the atlas, so icons should be copied on other
+     * threads, such as the render workers.
+     * @param material The material to get the icon for
+     * @param icon The array of ICON_SIZE * ICON_SIZE map palette indices in row-major order to copy into
+     * @return True if the material has an icon, false otherwise
+     * @throws IllegalStateException If called on the main thread while the atlas is still loading
+     */
+    public boolean copyIcon(Material material, byte[] icon) {
+        if (!atlas.isDone() && Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("Item image atlas is still loading, cannot wait on the main thread");
+        }
+
+        MappedByteBuffer buffer = atlas.join();
+        if (buffer == null) {
+            return false;
+        }
+
+        int iconIndex = buffer.getInt(HEADER_SIZE + material.ordinal() * 4);
+        if (iconIndex == -1) {
+            return false;
+        }
+
+        // Absolute gets do not touch the position of the buffer, so the buffer can be shared between threads
+        buffer.get(getDataStart() + iconIndex * ICON_BYTES, icon, 0, ICON_BYTES);
+        return true;
+    }
+
+    /**
+     * Get the offset in the atlas file at which the icon data starts
+     * @return The offset in bytes
+     */
+    private static int getDataStart() {
+        return HEADER_SIZE + NUM_MATERIALS * 4;
+    }
+
+    /**
+     * Maps the atlas file if it is up to date, or otherwise builds a new atlas from the images first.
+     * The file is only mapped once it is known to be up to date, since a mapped file cannot be replaced on Windows.
+     * @param imagesDir The directory containing the images
+     * @return The mapped atlas file
+     * @throws UncheckedIOException If the atlas could not be built or mapped
+     */
+    private static MappedByteBuffer load(File imagesDir) {
+        long startTime = System.currentTimeMillis();
+
+        File zipFile = new File(imagesDir, IMAGES_ZIP_NAME);
+        File atlasFile = new File(imagesDir, ATLAS_FILE_NAME);
+        long fingerprint = computeFingerprint(imagesDir, zipFile);
+
+        try {
+            if (isUpToDate(atlasFile, fingerprint)) {
+                Game.getLogger().info(String.format(
+                        "Loaded item image atlas in %d ms",
+                        System.currentTimeMillis() - startTime
+                ));
+
+                return map(atlasFile);
+            }
+
+            build(imagesDir, zipFile, atlasFile, fingerprint);
+
+            Game.getLogger().info(String.format(
+                    "Built item image atlas in %d ms",
+                    System.currentTimeMillis() - startTime
+            ));
+
+            return map(atlasFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps the given atlas file into memory
+     * @param atlasFile The atlas file
+     * @return The mapped file
+     * @throws IOException If the file could not be mapped
+     */
+    private static MappedByteBuffer map(File atlasFile) throws IOException {
+        // The mapping remains valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(atlasFile.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Checks whether the given atlas file matches the current format, images and materials, by reading its header
+     * without mapping the file
+     * @param atlasFile The atlas file
+     * @param fingerprint The fingerprint of the current images and materials
+     * @return True if the atlas can be used, false if it should be built again
+     * @throws IOException If the file could not be read
+     */
+    private static boolean isUpToDate(File atlasFile, long fingerprint) throws IOException {
+        if (!atlasFile.exists()) {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(atlasFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < getDataStart()) {
+                return false;
+            }
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    return false;
+                }
+            }
+        }
+
+        return buffer.getInt(0) == ATLAS_MAGIC
+                && buffer.getInt(4) == ATLAS_VERSION
+                && buffer.getLong(8) == fingerprint
+                && buffer.getInt(16) == ICON_SIZE
+                && buffer.getInt(20) == NUM_MATERIALS;
+    }
+
+    /**
+     * Computes a fingerprint of the source images and the existing materials, which changes whenever the images
+     * are changed or the material ordinals might have changed
+     * @param imagesDir The directory containing the images
+     * @param zipFile The zip containing the images
+     * @return The fingerprint
+     */
+    private static long computeFingerprint(File imagesDir, File zipFile) {
+        long fingerprint = 0;
+        for (Material material : Material.values()) {
+            fingerprint = fingerprint * 31 + material.name().hashCode();
+        }
+
+        if (zipFile.exists()) {
+            fingerprint = fingerprint * 31 + zipFile.length();
+            return fingerprint * 31 + zipFile.lastModified();
+        }
+
+        File[] files = imagesDir.listFiles((dir, name) -> name.endsWith(IMAGE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                fingerprint = fingerprint * 31 + file.getName().hashCode();
+                fingerprint = fingerprint * 31 + file.length();
+                fingerprint = fingerprint * 31 + file.lastModified();
+            }
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Builds the atlas file from the images. The atlas is written to a temporary file first, so that a partially
+     * written atlas is never mapped.
+     * @param imagesDir The directory containing the images
+     * @param zipFile The zip containing the images
+     * @param atlasFile The atlas file to write
+     * @param fingerprint The fingerprint of the images and materials
+     * @throws IOException If the images could not be read or the atlas could not be written
+     */
+    private static void build(File imagesDir, File zipFile, File atlasFile, long fingerprint) throws IOException {
+        Map<Material, byte[]> encodedImages = zipFile.exists() ? readZip(zipFile) : readDirectory(imagesDir);
+
+        // Decode the images in parallel, since decoding PNG files and matching colors is the expensive part
+        List<Map.Entry<Material, byte[]>> entries = new ArrayList<>(encodedImages.entrySet());
+        byte[][] icons = new byte[entries.size()][];
+        Arrays.parallelSetAll(icons, i -> decode(entries.get(i).getValue()));
+
+        int[] index = new int[NUM_MATERIALS];
+        Arrays.fill(index, -1);
+        ByteArrayOutputStream iconData = new ByteArrayOutputStream(icons.length * ICON_BYTES);
+        int numIcons = 0;
+        for (int i = 0; i < icons.length; i++) {
+            if (icons[i] == null) {
+                Game.getLogger().warning("Could not decode image file for material: " + entries.get(i).getKey());
+                continue;
+            }
+
+            index[entries.get(i).getKey().ordinal()] = numIcons++;
+            iconData.write(icons[i]);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(getDataStart());
+        header.putInt(ATLAS_MAGIC);
+        header.putInt(ATLAS_VERSION);
+        header.putLong(fingerprint);
+        header.putInt(ICON_SIZE);
+        header.putInt(NUM_MATERIALS);
+        for (int iconIndex : index) {
+            header.putInt(iconIndex);
+        }
+        header.flip();
+
+        File tempFile = new File(atlasFile.getParentFile(), atlasFile.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                tempFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            ByteBuffer data = ByteBuffer.wrap(iconData.toByteArray());
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+
+        Files.move(tempFile.toPath(), atlasFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the encoded images of all materials from the given zip, without extracting it
+     * @param zipFile The zip containing the images
+     * @return A map from material to the bytes of its image file
+     * @throws IOException If the zip could not be read
+     */
+    private static Map<Material, byte[]> readZip(File zipFile) throws IOException {
+        Map<Material, byte[]> encodedImages = new EnumMap<>(Material.class);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+
+                Material material = getMaterial(entry.getName());
+                if (material == null) {
+                    continue;
+                }
+
+                try (InputStream inputStream = zip.getInputStream(entry)) {
+                    encodedImages.put(material, inputStream.readAllBytes());
+                }
+            }
+        }
+
+        return encodedImages;
+    }
+
+    /**
+     * Reads the encoded images of all materials from loose files in the given directory
+     * @param imagesDir The directory containing the images
+     * @return A map from material to the bytes of its image file
+     * @throws IOException If an image could not be read
+     */
+    private static Map<Material, byte[]> readDirectory(File imagesDir) throws IOException {
+        Map<Material, byte[]> encodedImages = new EnumMap<>(Material.class);
+
+        File[] files = imagesDir.listFiles((dir, name) -> name.endsWith(IMAGE_EXTENSION));
+        if (files == null) {
+            return encodedImages;
+        }
+
+        for (File file : files) {
+            Material material = getMaterial(file.getName());
+            if (material != null) {
+                encodedImages.put(material, Files.readAllBytes(file.toPath()));
+            }
+        }
+
+        return encodedImages;
+    }
+
+    /**
+     * Get the material of the given image file name
+     * @param fileName The name of the image file, possibly including directories
+     * @return The material, or null if the file is not an image of a material
+     */
+    private static Material getMaterial(String fileName) {
+        String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+        if (!name.endsWith(IMAGE_EXTENSION)) {
+            return null;
+        }
+
+        return Material.getMaterial(
+                name.substring(0, name.length() - IMAGE_EXTENSION.length()).toUpperCase(Locale.ROOT)
+        );
+    }
+
+    /**
+     * Decodes the given image file into an icon of map palette indices, scaling it to ICON_SIZE by sampling the
+     * nearest source pixel if needed
+     * @param encodedImage The bytes of the image file
+     * @return The ICON_SIZE * ICON_SIZE map palette indices in row-major order, or null if the image could not
+     * be decoded
+     */
+    private static byte[] decode(byte[] encodedImage) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(encodedImage));
+        } catch (IOException e) {
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        byte[] icon = new byte[ICON_BYTES];
+        for (int y = 0; y < ICON_SIZE; y++) {
+            for (int x = 0; x < ICON_SIZE; x++) {
+                int color = image.getRGB(x * width / ICON_SIZE, y * height / ICON_SIZE);
+
+                // Fully transparent pixels are stored as the transparent palette index
+                if ((color >>> 24) == 0) {
+                    icon[y * ICON_SIZE + x] = TRANSPARENT;
+                } else {
+                    icon[y * ICON_SIZE + x] = MapPalette.matchColor(new Color(color & 0xFFFFFF));
+                }
+            }
+        }
+
+        return icon;
+    }
+
+}
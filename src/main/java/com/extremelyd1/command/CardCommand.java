@@ -1,5 +1,6 @@
 package com.extremelyd1.command;
 
+import com.extremelyd1.bingo.map.BingoCardItemFactory;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
 import com.extremelyd1.game.team.Team;
@@ -52,15 +53,14 @@ public class CardCommand implements TabExecutor {
             return true;
         }
 
-        if (ItemUtil.hasBingoCard(player)) {
+        BingoCardItemFactory factory = game.getBingoCardItemFactory();
+        if (ItemUtil.hasBingoCard(player, factory)) {
             player.sendMessage(Game.PREFIX + "You already have a bingo card in your inventory");
 
             return true;
         }
 
-        player.getInventory().addItem(
-                game.getBingoCardItemFactory().create(game.getBingoCard(), (PlayerTeam) team)
-        );
+        factory.giveBingoCard(player, factory.create(game.getBingoCard(), (PlayerTeam) team));
         player.sendMessage(
                 Game.PREFIX + "You have been given a new bingo card"
         );
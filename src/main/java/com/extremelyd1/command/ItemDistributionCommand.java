@@ -49,10 +49,11 @@ public class ItemDistributionCommand implements TabExecutor {
             return true;
         }
 
-        if (numSTierItems + numATierItems + numBTierItems + numCTierItems + numDTierItems != 25) {
+        int numCells = game.getConfig().getNumCells();
+        if (numSTierItems + numATierItems + numBTierItems + numCTierItems + numDTierItems != numCells) {
             sender.sendMessage(
                     ChatColor.DARK_RED + "Error: "
-                            + ChatColor.WHITE + "The distribution must add up to 25 in total"
+                            + ChatColor.WHITE + "The distribution must add up to " + numCells + " in total"
             );
 
             return true;
@@ -65,6 +66,7 @@ public class ItemDistributionCommand implements TabExecutor {
                 numCTierItems,
                 numDTierItems
         );
+        game.getBingoCardPool().invalidate();
 
         sender.sendMessage(
                 ChatColor.GREEN + "Successfully"
@@ -127,9 +129,11 @@ public class ItemDistributionCommand implements TabExecutor {
             return list;
         }
 
-        // If we only have 1 argument, we give the option of 0 through 25
+        int numCells = game.getConfig().getNumCells();
+
+        // If we only have 1 argument, we give the option of 0 through the number of cells
         if (args.length == 1) {
-            for (int i = 0; i < 26; i++) {
+            for (int i = 0; i <= numCells; i++) {
                 String s = String.valueOf(i);
                 if (s.startsWith(args[0])) {
                     list.add(s);
@@ -159,15 +163,15 @@ public class ItemDistributionCommand implements TabExecutor {
 
                 // Add the previous argument to the total
                 total += numTier;
-                if (total < 0 || total > 25) {
-                    // If the total is out of the range of 0 through 25, we don't suggest anything
+                if (total < 0 || total > numCells) {
+                    // If the total is out of the range of 0 through the number of cells, we don't suggest anything
                     return Collections.emptyList();
                 }
 
                 // If i is the last argument that the user has supplied
                 if (args.length == i) {
                     // Calculate how many items we can still put in the distribution and suggest those
-                    int leftInDist = 25 - total;
+                    int leftInDist = numCells - total;
                     for (int j = 0; j <= leftInDist; j++) {
                         String s = String.valueOf(j);
                         if (s.startsWith(args[i - 1])) {
@@ -81,10 +81,10 @@ public class TeamCommand implements TabExecutor {
                 return true;
             }
 
-            if (numTeams >= TeamManager.MAX_TEAMS) {
+            if (numTeams > TeamManager.MAX_TEAMS) {
                 sender.sendMessage(
                         ChatColor.DARK_RED + "Error: "
-                                + ChatColor.WHITE + "Cannot create more than 8 teams"
+                                + ChatColor.WHITE + "Cannot create more than " + TeamManager.MAX_TEAMS + " teams"
                 );
 
                 return true;
@@ -83,14 +83,15 @@ public class WinConditionCommand implements TabExecutor {
                 return true;
             }
 
-            if (numLines < 1 || numLines > 10) {
+            int maxNumLines = game.getWinConditionChecker().getMaxNumLinesToComplete();
+            if (numLines < 1 || numLines > maxNumLines) {
                 sender.sendMessage(
                         ChatColor.DARK_RED + "Error: "
                                 + ChatColor.WHITE + "Number of lines to complete must be "
                                 + ChatColor.BOLD + "between"
                                 + ChatColor.RESET + ChatColor.YELLOW + " 0"
                                 + ChatColor.WHITE + " and "
-                                + ChatColor.YELLOW + "11"
+                                + ChatColor.YELLOW + (maxNumLines + 1)
                 );
 
                 return true;
@@ -130,13 +131,14 @@ public class WinConditionCommand implements TabExecutor {
                                 + ChatColor.BOLD + "between"
                                 + ChatColor.RESET + ChatColor.YELLOW + " 0"
                                 + ChatColor.WHITE + " and "
-                                + ChatColor.YELLOW + "9"
+                                + ChatColor.YELLOW + (TeamManager.MAX_TEAMS + 1)
                 );
 
                 return true;
             }
 
             game.getWinConditionChecker().setCompletionsToLock(completionsToLock);
+            game.getBingoCardPool().invalidate();
 
             String message = Game.PREFIX + "Lockout has been "
                     + ChatColor.GREEN + "enabled"
@@ -180,7 +182,7 @@ public class WinConditionCommand implements TabExecutor {
             // fallen's fork: add "quidditch" mode
             if (args[0].equalsIgnoreCase("lines") || args[0].equalsIgnoreCase("quidditch")) {
                 List<String> numLines = new ArrayList<>();
-                for (int i = 1; i <= 10; i++) {
+                for (int i = 1; i <= game.getWinConditionChecker().getMaxNumLinesToComplete(); i++) {
                     String s = String.valueOf(i);
                     if (s.startsWith(args[1])) {
                         numLines.add(s);
@@ -1,6 +1,8 @@
 package com.extremelyd1.config;
 
+import com.extremelyd1.bingo.BoardShape;
 import com.extremelyd1.game.progress.ProgressController;
+import com.extremelyd1.world.generation.ChunkOrder;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -11,6 +13,11 @@ public class Config {
      */
     private final boolean enableBlacklist;
 
+    /**
+     * The number of cells on each side of the bingo card
+     */
+    private final int boardSize;
+
     /**
      * The default number of S tier items
      */
@@ -103,6 +110,10 @@ public class Config {
      * Whether to pre-generate the worlds within the border in advance
      */
     private final boolean preGenerateWorlds;
+    /**
+     * The order in which the chunks of pre-generated worlds are generated
+     */
+    private final ChunkOrder preGenerationChunkOrder;
 
     /**
      * The radius of the pregame border
@@ -158,6 +169,14 @@ public class Config {
         FileConfiguration config = plugin.getConfig();
 
         enableBlacklist = config.getBoolean("enable-blacklist");
+
+        boardSize = config.getInt("board-size", BoardShape.DEFAULT_SIZE);
+        if (!BoardShape.isValidSize(boardSize)) {
+            throw new IllegalArgumentException(
+                    "Board size must be between " + BoardShape.MIN_SIZE + " and " + BoardShape.MAX_SIZE
+            );
+        }
+
         String defaultItemDistributionString = config.getString("default-item-distribution");
 
         if (defaultItemDistributionString == null
@@ -176,7 +195,21 @@ public class Config {
         numCTierItems = parseItemDistribution(itemDistributions[3]);
         numDTierItems = parseItemDistribution(itemDistributions[4]);
 
+        if (numSTierItems + numATierItems + numBTierItems + numCTierItems + numDTierItems != getNumCells()) {
+            throw new IllegalArgumentException(
+                    "Default item distribution config value does not add up to " + getNumCells()
+                            + " (the number of cells on a board of size " + boardSize + ")"
+            );
+        }
+
         defaultNumLinesComplete = config.getInt("default-num-lines-complete-for-win");
+        int maxNumLinesComplete = BoardShape.of(boardSize).getMaxNumLines();
+        if (defaultNumLinesComplete < 1 || defaultNumLinesComplete > maxNumLinesComplete) {
+            throw new IllegalArgumentException(
+                    "Default number of lines to complete for win must be between 1 and " + maxNumLinesComplete
+                            + " (on a board of size " + boardSize + ")"
+            );
+        }
 
         showCurrentlyWinningTeam = config.getBoolean("show-currently-winning-team");
 
@@ -206,6 +239,7 @@ public class Config {
 
         // Only allow pre-generation of worlds if there is the border is enabled
         preGenerateWorlds = borderEnabled && config.getBoolean("pregeneration-mode.enable");
+        preGenerationChunkOrder = ChunkOrder.fromName(config.getString("pregeneration-mode.chunk-order", "center-out"));
 
         preGameBorderRadius = config.getInt("pregame.border-radius");
 
@@ -239,6 +273,18 @@ public class Config {
         return enableBlacklist;
     }
 
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Get the number of cells on the bingo card, which is the total the item distribution must add up to
+     * @return The number of cells
+     */
+    public int getNumCells() {
+        return boardSize * boardSize;
+    }
+
     public int getNumSTier() {
         return numSTierItems;
     }
@@ -337,6 +383,10 @@ public class Config {
         return preGenerateWorlds;
     }
 
+    public ChunkOrder getPreGenerationChunkOrder() {
+        return preGenerationChunkOrder;
+    }
+
     public int getPreGameBorderRadius() {
         return preGameBorderRadius;
     }
@@ -1,6 +1,7 @@
 package com.extremelyd1.game;
 
 import com.extremelyd1.bingo.BingoCard;
+import com.extremelyd1.bingo.BingoCardPool;
 import com.extremelyd1.bingo.item.BingoItemMaterials;
 import com.extremelyd1.bingo.map.BingoCardItemFactory;
 import com.extremelyd1.command.*;
@@ -84,6 +85,10 @@ public class Game {
      * The bingo item materials store instance
      */
     private final BingoItemMaterials bingoItemMaterials;
+    /**
+     * The pool of bingo cards that are generated ahead of time
+     */
+    private final BingoCardPool bingoCardPool;
     /**
      * The win condition checker instance
      */
@@ -155,6 +160,10 @@ public class Game {
 
         winConditionChecker = new WinConditionChecker(config);
 
+        bingoCardPool = new BingoCardPool(this);
+        bingoCardPool.invalidate();
+        bingoItemMaterials.watchMaterials(getDataFolder());
+
         chatChannelController = new ChatChannelController();
 
         soundManager = new SoundManager();
@@ -166,6 +175,13 @@ public class Game {
         registerCommands(bingo);
     }
 
+    /**
+     * Stops the background work of the game, should be called when the plugin is disabled
+     */
+    public void onDisable() {
+        bingoItemMaterials.stopWatching();
+    }
+
     /**
      * Register all event listeners
      * @param plugin The plugin instance to register the listeners to
@@ -310,8 +326,12 @@ public class Game {
         this.state = State.IN_GAME;
         this.gameStarting = false;
 
-        // Create random bingo card
-        bingoCard = new BingoCard(bingoItemMaterials.pickMaterials(), winConditionChecker.getCompletionsToLock());
+        // Take a random bingo card that was generated in the background
+        bingoCard = bingoCardPool.take();
+        winConditionChecker.reset(bingoCard, teamManager.getActiveTeams());
+
+        // The cards of the previous game are no longer held, since the inventories are cleared below
+        bingoCardItemFactory.releaseRetiredViews();
 
         int index = 0;
         for (PlayerTeam team : teamManager.getActiveTeams()) {
@@ -343,7 +363,7 @@ public class Game {
                 teamPlayer.setRemainingAir(teamPlayer.getMaximumAir());
 
                 // Give all players a bingo card
-                teamPlayer.getInventory().addItem(bingoCardItemFactory.create(
+                bingoCardItemFactory.giveBingoCard(teamPlayer, bingoCardItemFactory.create(
                         bingoCard,
                         team
                 ));
@@ -364,7 +384,7 @@ public class Game {
 
             // fallen's fork: give bingo cards of all teams to the spectator player
             for (PlayerTeam team : teamManager.getActiveTeams()) {
-                spectatorPlayer.getInventory().addItem(bingoCardItemFactory.create(
+                bingoCardItemFactory.giveBingoCard(spectatorPlayer, bingoCardItemFactory.create(
                         bingoCard,
                         team
                 ));
@@ -434,7 +454,7 @@ public class Game {
             }
             i++;
             footer.append(team.getColor()).append(team.getName()).append(": ").
-                    append(bingoCard.getNumLinesComplete(team)).append("/").append(team.getNumCollected());
+                    append(winConditionChecker.getNumLinesComplete(team)).append("/").append(team.getNumCollected());
             if (winConditionChecker.isQuidditchMode() && team.isGotGoldenSnitch()) {
                 footer.append(" +").append(config.getQuidditchGoldenSnitchBonus());
             }
@@ -499,7 +519,7 @@ public class Game {
                 ItemStack bingoCardItemStack = bingoCardItemFactory.create(
                         bingoCard,
                         team,
-                        ColorUtil.chatColorToInt(team.getColor())
+                        team.getMapColor()
                 );
 
                 // Change the item name to include team name and color
@@ -546,19 +566,29 @@ public class Game {
         if (config.isTimerEnabled()) {
             gameTimer.cancel();
         }
+
+        // The card no longer changes, so its views can be retired now that the post-game cards have been created
+        bingoCardItemFactory.retireViews();
     }
 
     /**
      * Reroll the bingo card
      */
     public void rerollCard() {
-        // Create random bingo card
-        bingoCard = new BingoCard(bingoItemMaterials.pickMaterials(), winConditionChecker.getCompletionsToLock());
+        // Take a random bingo card that was generated in the background
+        bingoCard = bingoCardPool.take();
 
         for (PlayerTeam team : teamManager.getActiveTeams()) {
             // Reset the number of collected items for this team
             team.resetNumCollected();
+        }
+
+        winConditionChecker.reset(bingoCard, teamManager.getActiveTeams());
 
+        // The map views of the active teams are reused for the new card, so only the others can be released
+        bingoCardItemFactory.releaseUnusedViews(teamManager.getActiveTeams());
+
+        for (PlayerTeam team : teamManager.getActiveTeams()) {
             // Update the bingo card of all players in the team
             ItemUtil.updateBingoCard(bingoCard, team, bingoCardItemFactory);
 
@@ -590,6 +620,11 @@ public class Game {
      * @param material The material that is collected
      */
     public void onMaterialCollected(Player player, Material material) {
+        // Most materials that are picked up are not on the card, so reject those before doing any other work
+        if (!bingoCard.containsMaterial(material)) {
+            return;
+        }
+
         Team team = teamManager.getTeamByPlayer(player);
         if (team == null || team.isSpectatorTeam()) {
             getLogger().warning("Material collected by player without team");
@@ -598,71 +633,77 @@ public class Game {
 
         PlayerTeam collectorTeam = (PlayerTeam) team;
 
-        int linesCompletedBefore = bingoCard.getNumLinesComplete(collectorTeam);
-
-        if (bingoCard.checkMaterialCollection(material, collectorTeam)) {
-
-            // fallen's fork: add for "quidditch" mode
-            winConditionChecker.onCollection(bingoCard, collectorTeam, teamManager.getActiveTeams());
-
-            gameBoardManager.onItemCollected(collectorTeam);
-
-            if (config.notifyOtherTeamCompletions()) {
-                // Broadcast a message of this collection
-                Bukkit.getServer().broadcast(
-                        Component.text(
-                                PREFIX +
-                                        collectorTeam.getColor() + collectorTeam.getName()
-                                        + ChatColor.WHITE + " team has obtained "
-                        ).append(
-                                Component.translatable(material.translationKey()).
-                                        color(NamedTextColor.AQUA)
-                        )
-                );
-            }
+        int linesCompletedBefore = winConditionChecker.getNumLinesComplete(collectorTeam);
 
-            if (config.notifyOtherTeamCompletions() ||
-                    (winConditionChecker.getCompletionsToLock() > 0 && bingoCard.isItemLocked(material))
-            ) {
-                // Update the cards of all players in all teams
-                for (PlayerTeam playerTeam : teamManager.getActiveTeams()) {
-                    ItemUtil.updateBingoCard(bingoCard, playerTeam, bingoCardItemFactory);
-                }
-            } else {
-                // Update only the bingo card of the players in the team that collected the item
-                ItemUtil.updateBingoCard(bingoCard, collectorTeam, bingoCardItemFactory);
-            }
+        if (!bingoCard.checkMaterialCollection(material, collectorTeam)) {
+            return;
+        }
 
-            config.getProgressController().onCollection(this, collectorTeam, linesCompletedBefore);
+        winConditionChecker.onCollection(
+                bingoCard,
+                collectorTeam,
+                bingoCard.getCellIndex(material),
+                teamManager.getActiveTeams()
+        );
 
-            // Get a list of current winners from the checker
-            List<PlayerTeam> winners = winConditionChecker.getCurrentWinners(
-                    bingoCard,
-                    collectorTeam,
-                    teamManager.getActiveTeams()
+        gameBoardManager.onItemCollected(collectorTeam);
+
+        if (config.notifyOtherTeamCompletions()) {
+            // Broadcast a message of this collection
+            Bukkit.getServer().broadcast(
+                    Component.text(
+                            PREFIX +
+                                    collectorTeam.getColor() + collectorTeam.getName()
+                                    + ChatColor.WHITE + " team has obtained "
+                    ).append(
+                            Component.translatable(material.translationKey()).
+                                    color(NamedTextColor.AQUA)
+                    )
             );
+        }
 
-            if (winners.isEmpty()) {
-                // If the list is empty, the game is not finished yet
-                soundManager.broadcastItemCollected(collectorTeam);
-            } else if (winners.size() == 1) {
-                // If there is a single winner, we can announce it
-                end(new WinReason(winners.get(0), WinReason.Reason.COMPLETE));
-            } else {
-                // Otherwise, end the game with a random tie
-                end(new WinReason(
-                        winners.get(new Random().nextInt(winners.size())),
-                        WinReason.Reason.RANDOM_TIE)
-                );
+        // Only the cell of the collected item changes on the cards
+        int cellIndex = bingoCard.getCellIndex(material);
+        if (config.notifyOtherTeamCompletions() ||
+                (winConditionChecker.getCompletionsToLock() > 0 && bingoCard.isItemLocked(material))
+        ) {
+            // Update the cards of all players in all teams
+            for (PlayerTeam playerTeam : teamManager.getActiveTeams()) {
+                ItemUtil.updateBingoCardCell(bingoCard, playerTeam, bingoCardItemFactory, cellIndex);
             }
+        } else {
+            // Update only the bingo card of the players in the team that collected the item
+            ItemUtil.updateBingoCardCell(bingoCard, collectorTeam, bingoCardItemFactory, cellIndex);
         }
 
+        config.getProgressController().onCollection(this, collectorTeam, linesCompletedBefore);
+
         // fallen's fork: show num & row collected in tab list
-        // update the tablist on game end
         this.showItemCollectedInTabList();
 
         // fallen's fork: better bingo item display
-        bingoCard.getBingoCardInventory().rebuildInventory();
+        bingoCard.getBingoCardInventory().updateCell(cellIndex);
+
+        // Get a list of current winners from the checker
+        List<PlayerTeam> winners = winConditionChecker.getCurrentWinners(
+                bingoCard,
+                collectorTeam,
+                teamManager.getActiveTeams()
+        );
+
+        if (winners.isEmpty()) {
+            // If the list is empty, the game is not finished yet
+            soundManager.broadcastItemCollected(collectorTeam);
+        } else if (winners.size() == 1) {
+            // If there is a single winner, we can announce it
+            end(new WinReason(winners.get(0), WinReason.Reason.COMPLETE));
+        } else {
+            // Otherwise, end the game with a random tie
+            end(new WinReason(
+                    winners.get(new Random().nextInt(winners.size())),
+                    WinReason.Reason.RANDOM_TIE)
+            );
+        }
     }
 
     public State getState() {
@@ -685,6 +726,14 @@ public class Game {
         return bingoCardItemFactory;
     }
 
+    public BingoItemMaterials getBingoItemMaterials() {
+        return bingoItemMaterials;
+    }
+
+    public BingoCardPool getBingoCardPool() {
+        return bingoCardPool;
+    }
+
     public WinConditionChecker getWinConditionChecker() {
         return winConditionChecker;
     }
@@ -47,7 +47,7 @@ public class ProgressController {
                 );
             }
         } else if (winConditionChecker.getNumLinesToComplete() > 0) {
-            int linesCompletedNow = game.getBingoCard().getNumLinesComplete(collectorTeam);
+            int linesCompletedNow = winConditionChecker.getNumLinesComplete(collectorTeam);
 
             if (linesCompletedNow > linesCompletedBefore) {
                 if (shouldNotifyProgressLines(linesCompletedNow)) {
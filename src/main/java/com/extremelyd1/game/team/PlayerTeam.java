@@ -8,6 +8,16 @@ import org.bukkit.Location;
  */
 public class PlayerTeam extends Team {
 
+    /**
+     * The unique index of this team, used to index per-team state such as collection bitmasks
+     */
+    private final int id;
+
+    /**
+     * The color of this team on the bingo card map, distinct from the colors of other teams
+     */
+    private final int mapColor;
+
     /**
      * The number of items this team has collected
      */
@@ -21,8 +31,19 @@ public class PlayerTeam extends Team {
     // fallen's fork: add for "quidditch" mode
     private boolean gotGoldenSnitch = false;
 
-    public PlayerTeam(String name, ChatColor color) {
+    public PlayerTeam(int id, String name, ChatColor color, int mapColor) {
         super(name, color, false);
+
+        this.id = id;
+        this.mapColor = mapColor;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getMapColor() {
+        return mapColor;
     }
 
     public void incrementCollected() {
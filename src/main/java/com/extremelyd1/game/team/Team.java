@@ -1,13 +1,10 @@
 package com.extremelyd1.game.team;
 
 import com.extremelyd1.game.Game;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 public class Team {
 
@@ -20,9 +17,17 @@ public class Team {
      */
     protected final ChatColor color;
     /**
-     * The list of players in this team, stored as UUIDs
+     * The set of players in this team, stored as UUIDs
      */
-    protected final List<UUID> uuids;
+    protected final Set<UUID> uuids;
+    /**
+     * The list of players in this team that are currently online, kept up to date by join and quit events
+     */
+    protected final List<Player> onlinePlayers;
+    /**
+     * Read-only view of the online players that is handed out when iterating over the players in this team
+     */
+    private final List<Player> onlinePlayersView;
 
     /**
      * Whether this is an spectator team
@@ -37,7 +42,9 @@ public class Team {
         this.name = name;
         this.color = color;
 
-        this.uuids = new ArrayList<>();
+        this.uuids = new LinkedHashSet<>();
+        this.onlinePlayers = new ArrayList<>();
+        this.onlinePlayersView = Collections.unmodifiableList(onlinePlayers);
 
         this.isSpectatorTeam = isSpectatorTeam;
     }
@@ -57,6 +64,9 @@ public class Team {
      */
     void addPlayer(Player player, boolean notify) {
         this.uuids.add(player.getUniqueId());
+        if (player.isOnline()) {
+            this.onlinePlayers.add(player);
+        }
 
         if (notify) {
             player.sendMessage(
@@ -74,6 +84,25 @@ public class Team {
      */
     void removePlayer(Player player) {
         this.uuids.remove(player.getUniqueId());
+        this.onlinePlayers.remove(player);
+    }
+
+    /**
+     * Marks the given player of this team as online, should be called when the player joins
+     * @param player The player that came online
+     */
+    void setOnline(Player player) {
+        // Remove any stale instance of the player before adding the new one
+        this.onlinePlayers.remove(player);
+        this.onlinePlayers.add(player);
+    }
+
+    /**
+     * Marks the given player of this team as offline, should be called when the player quits
+     * @param player The player that went offline
+     */
+    void setOffline(Player player) {
+        this.onlinePlayers.remove(player);
     }
 
     /**
@@ -90,6 +119,7 @@ public class Team {
      */
     public void clear() {
         uuids.clear();
+        onlinePlayers.clear();
     }
 
     public String getName() {
@@ -101,18 +131,11 @@ public class Team {
     }
 
     /**
-     * Gets player objects in this team by retrieving them by UUID,
-     * does not return any null objects
-     * @return An iterable of Player instances
+     * Gets the player objects in this team that are currently online
+     * @return A read-only iterable of Player instances
      */
     public Iterable<Player> getPlayers() {
-        return () -> uuids.stream()
-                // Filter out players that are not valid anymore
-                .filter(uuid -> Bukkit.getPlayer(uuid) != null)
-                // Map everything to their respective Player instance
-                .map(Bukkit::getPlayer)
-                // Return an iterator
-                .iterator();
+        return onlinePlayersView;
     }
 
     public Iterable<UUID> getUUIDs() {
@@ -1,5 +1,6 @@
 package com.extremelyd1.game.team;
 
+import com.extremelyd1.util.ColorUtil;
 import org.bukkit.ChatColor;
 
 /**
@@ -23,7 +24,31 @@ public class TeamFactory {
             "Pink",
             "Aqua",
             "Orange",
-            "Gray"
+            "Gray",
+            "Maroon",
+            "Navy",
+            "Forest",
+            "Teal",
+            "Purple",
+            "Charcoal",
+            "White",
+            "Black",
+            "Coral",
+            "Sky",
+            "Lime",
+            "Gold",
+            "Magenta",
+            "Cyan",
+            "Amber",
+            "Silver",
+            "Crimson",
+            "Indigo",
+            "Olive",
+            "Turquoise",
+            "Violet",
+            "Brown",
+            "Salmon",
+            "Mint"
     };
 
     /**
@@ -52,8 +77,88 @@ public class TeamFactory {
             ChatColor.GOLD,
 //            ChatColor.of(new Color(255, 128, 0)),
             // Gray
-            ChatColor.GRAY
+            ChatColor.GRAY,
 //            ChatColor.of(new Color(128, 128, 128)),
+            // Teams beyond the first 8 use the remaining chat colors, and after those reuse chat colors.
+            // They are told apart on the bingo card by their map color.
+            ChatColor.DARK_RED,
+            ChatColor.DARK_BLUE,
+            ChatColor.DARK_GREEN,
+            ChatColor.DARK_AQUA,
+            ChatColor.DARK_PURPLE,
+            ChatColor.DARK_GRAY,
+            ChatColor.WHITE,
+            ChatColor.BLACK,
+            ChatColor.RED,
+            ChatColor.AQUA,
+            ChatColor.GREEN,
+            ChatColor.YELLOW,
+            ChatColor.LIGHT_PURPLE,
+            ChatColor.AQUA,
+            ChatColor.GOLD,
+            ChatColor.GRAY,
+            ChatColor.DARK_RED,
+            ChatColor.DARK_BLUE,
+            ChatColor.DARK_GREEN,
+            ChatColor.DARK_AQUA,
+            ChatColor.DARK_PURPLE,
+            ChatColor.GOLD,
+            ChatColor.RED,
+            ChatColor.GREEN
+    };
+
+    /**
+     * The colors of the teams on the bingo card map, which are distinct for each team
+     */
+    private final int[] mapColors = {
+            ColorUtil.chatColorToInt(ChatColor.RED),
+            ColorUtil.chatColorToInt(ChatColor.BLUE),
+            ColorUtil.chatColorToInt(ChatColor.GREEN),
+            ColorUtil.chatColorToInt(ChatColor.YELLOW),
+            ColorUtil.chatColorToInt(ChatColor.LIGHT_PURPLE),
+            ColorUtil.chatColorToInt(ChatColor.AQUA),
+            ColorUtil.chatColorToInt(ChatColor.GOLD),
+            ColorUtil.chatColorToInt(ChatColor.GRAY),
+            ColorUtil.chatColorToInt(ChatColor.DARK_RED),
+            ColorUtil.chatColorToInt(ChatColor.DARK_BLUE),
+            ColorUtil.chatColorToInt(ChatColor.DARK_GREEN),
+            ColorUtil.chatColorToInt(ChatColor.DARK_AQUA),
+            ColorUtil.chatColorToInt(ChatColor.DARK_PURPLE),
+            ColorUtil.chatColorToInt(ChatColor.DARK_GRAY),
+            ColorUtil.chatColorToInt(ChatColor.WHITE),
+            ColorUtil.chatColorToInt(ChatColor.BLACK),
+            // Coral
+            ColorUtil.getFromRgb(255, 127, 80),
+            // Sky
+            ColorUtil.getFromRgb(135, 206, 235),
+            // Lime
+            ColorUtil.getFromRgb(50, 205, 50),
+            // Gold
+            ColorUtil.getFromRgb(255, 215, 0),
+            // Magenta
+            ColorUtil.getFromRgb(255, 0, 255),
+            // Cyan
+            ColorUtil.getFromRgb(0, 255, 255),
+            // Amber
+            ColorUtil.getFromRgb(255, 191, 0),
+            // Silver
+            ColorUtil.getFromRgb(192, 192, 192),
+            // Crimson
+            ColorUtil.getFromRgb(220, 20, 60),
+            // Indigo
+            ColorUtil.getFromRgb(75, 0, 130),
+            // Olive
+            ColorUtil.getFromRgb(128, 128, 0),
+            // Turquoise
+            ColorUtil.getFromRgb(64, 224, 208),
+            // Violet
+            ColorUtil.getFromRgb(238, 130, 238),
+            // Brown
+            ColorUtil.getFromRgb(139, 69, 19),
+            // Salmon
+            ColorUtil.getFromRgb(250, 128, 114),
+            // Mint
+            ColorUtil.getFromRgb(152, 255, 152)
     };
 
     public TeamFactory() {
@@ -68,7 +173,7 @@ public class TeamFactory {
     public PlayerTeam createTeam() {
         lastTeamIndex++;
 
-        return new PlayerTeam(names[lastTeamIndex], colors[lastTeamIndex]);
+        return new PlayerTeam(lastTeamIndex, names[lastTeamIndex], colors[lastTeamIndex], mapColors[lastTeamIndex]);
     }
 
 }
@@ -3,10 +3,8 @@ package com.extremelyd1.game.team;
 import com.extremelyd1.game.Game;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manager class that handles team related activities
@@ -14,9 +12,10 @@ import java.util.Random;
 public class TeamManager {
 
     /**
-     * The maximum number of teams
+     * The maximum number of teams, at most 64 since per-team state such as the collectors of an item is stored
+     * in long bitmasks indexed by team ID
      */
-    public static final int MAX_TEAMS = 8;
+    public static final int MAX_TEAMS = 32;
 
     /**
      * The game instance
@@ -24,9 +23,13 @@ public class TeamManager {
     private final Game game;
 
     /**
-     * The list of possible teams
+     * The possible teams, indexed by team ID
      */
-    private final List<PlayerTeam> teams;
+    private final PlayerTeam[] teams;
+    /**
+     * An unmodifiable list view of the possible teams
+     */
+    private final List<PlayerTeam> teamsView;
     /**
      * The list of teams that have at least a single player on it
      */
@@ -35,17 +38,24 @@ public class TeamManager {
      * The team containing spectators
      */
     private final Team spectatorTeam;
+    /**
+     * A mapping from player UUID to the team the player is on, including the spectator team.
+     * Concurrent since it is also read from asynchronous login events.
+     */
+    private final Map<UUID, Team> teamsByPlayer;
 
     public TeamManager(Game game) {
         this.game = game;
-        this.teams = new ArrayList<>();
+        this.teams = new PlayerTeam[MAX_TEAMS];
+        this.teamsView = Collections.unmodifiableList(Arrays.asList(teams));
         this.activeTeams = new ArrayList<>();
+        this.teamsByPlayer = new ConcurrentHashMap<>();
 
         this.spectatorTeam = new Team();
 
         TeamFactory teamFactory = new TeamFactory();
         for (int i = 0; i < MAX_TEAMS; i++) {
-            teams.add(teamFactory.createTeam());
+            teams[i] = teamFactory.createTeam();
         }
     }
 
@@ -75,7 +85,7 @@ public class TeamManager {
         int teamIndex = 0;
 
         for (int i = 0; i < numTeams; i++) {
-            PlayerTeam team = teams.get(teamIndex++);
+            PlayerTeam team = teams[teamIndex++];
 
             for (int p = 0; p < playersPerTeam; p++) {
                 Player randomPlayer = playersLeft.get(
@@ -124,6 +134,7 @@ public class TeamManager {
     public void addPlayerToTeam(Player player, Team team, boolean notify) {
         removePlayerFromTeam(player);
         team.addPlayer(player, notify);
+        teamsByPlayer.put(player.getUniqueId(), team);
 
         if (!team.isSpectatorTeam()) {
             PlayerTeam playerTeam = (PlayerTeam) team;
@@ -158,12 +169,35 @@ public class TeamManager {
      */
     private void removePlayerFromTeam(Player player, Team team) {
         team.removePlayer(player);
+        teamsByPlayer.remove(player.getUniqueId());
 
         if (!team.isSpectatorTeam() && team.getNumPlayers() == 0) {
             activeTeams.remove(team);
         }
     }
 
+    /**
+     * Should be called when a player joins, to register the player as online in their team
+     * @param player The player that joined
+     */
+    public void onPlayerJoin(Player player) {
+        Team team = getTeamByPlayer(player);
+        if (team != null) {
+            team.setOnline(player);
+        }
+    }
+
+    /**
+     * Should be called when a player quits, to register the player as offline in their team
+     * @param player The player that quit
+     */
+    public void onPlayerQuit(Player player) {
+        Team team = getTeamByPlayer(player);
+        if (team != null) {
+            team.setOffline(player);
+        }
+    }
+
     /**
      * Get a team by their name, ignoring case
      * @param name The name to search for
@@ -179,6 +213,15 @@ public class TeamManager {
         return null;
     }
 
+    /**
+     * Get a team by their ID
+     * @param id The ID of the team
+     * @return The team with the given ID
+     */
+    public PlayerTeam getTeamById(int id) {
+        return teams[id];
+    }
+
     /**
      * Get the spectator team
      * @return The spectator team
@@ -194,6 +237,9 @@ public class TeamManager {
         while (!activeTeams.isEmpty()) {
             PlayerTeam team = activeTeams.get(0);
 
+            for (UUID uuid : team.getUUIDs()) {
+                teamsByPlayer.remove(uuid);
+            }
             team.clear();
 
             activeTeams.remove(team);
@@ -206,17 +252,16 @@ public class TeamManager {
      * @return The team the player is on or null if the player has no team
      */
     public Team getTeamByPlayer(Player player) {
-        for (PlayerTeam team : activeTeams) {
-            if (team.contains(player)) {
-                return team;
-            }
-        }
-
-        if (spectatorTeam.contains(player)) {
-            return spectatorTeam;
-        }
+        return getTeamByUUID(player.getUniqueId());
+    }
 
-        return null;
+    /**
+     * Get the team the player with the given UUID is on
+     * @param uuid The UUID of the player to check
+     * @return The team the player is on or null if the player has no team
+     */
+    public Team getTeamByUUID(UUID uuid) {
+        return teamsByPlayer.get(uuid);
     }
 
     /**
@@ -240,7 +285,7 @@ public class TeamManager {
      * @return An iterable for the available teams
      */
     public Iterable<PlayerTeam> getAvailableTeams() {
-        return teams;
+        return teamsView;
     }
 
 }
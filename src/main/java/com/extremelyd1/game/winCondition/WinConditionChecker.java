@@ -1,16 +1,16 @@
 package com.extremelyd1.game.winCondition;
 
 import com.extremelyd1.bingo.BingoCard;
+import com.extremelyd1.bingo.BoardShape;
 import com.extremelyd1.bingo.item.BingoItem;
 import com.extremelyd1.config.Config;
 import com.extremelyd1.game.team.PlayerTeam;
+import com.extremelyd1.game.team.TeamManager;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static com.extremelyd1.game.Game.PREFIX;
 
@@ -47,12 +47,59 @@ public class WinConditionChecker {
      */
     private final int quidditchGoldenSnitchBonus;
 
+    /**
+     * The maximum number of lines that can be required to win, which is the number of rows and columns on the
+     * configured board, so that it stays 10 on the default 5x5 board
+     */
+    private final int maxNumLinesToComplete;
+
+    /**
+     * For each team ID, the number of lines the team has completed on the current card.
+     * Kept up to date incrementally by {@link #onCollection}.
+     */
+    private final int[] numLinesComplete;
+    /**
+     * For each team ID, the number of items the team can still end up with on the current card, which is
+     * all items except those that are locked and not collected by the team.
+     * Kept up to date incrementally by {@link #onCollection}.
+     */
+    private final int[] possibleNumCollections;
+    /**
+     * The teams that are currently leading the game, recomputed from the tracked scores after each collection
+     */
+    private final List<PlayerTeam> leadingTeams;
+
     public WinConditionChecker(Config config) {
         this.numLinesToComplete = config.getDefaultNumLinesComplete();
         this.fullCard = false;
         this.completionsToLock = 0;
         this.quidditchMode = config.isDefaultWinConditionIsQuidditch();
         this.quidditchGoldenSnitchBonus = config.getQuidditchGoldenSnitchBonus();
+        this.maxNumLinesToComplete = BoardShape.of(config.getBoardSize()).getMaxNumLines();
+
+        this.numLinesComplete = new int[TeamManager.MAX_TEAMS];
+        this.possibleNumCollections = new int[TeamManager.MAX_TEAMS];
+        this.leadingTeams = new ArrayList<>();
+    }
+
+    /**
+     * Resets the tracked state for a new bingo card, should be called whenever a card is created or rerolled.
+     * @param card The new bingo card.
+     * @param allTeams All the teams participating.
+     */
+    public void reset(BingoCard card, Iterable<PlayerTeam> allTeams) {
+        Arrays.fill(numLinesComplete, 0);
+        Arrays.fill(possibleNumCollections, 0);
+
+        for (PlayerTeam team : allTeams) {
+            numLinesComplete[team.getId()] = card.getNumLinesComplete(team);
+
+            // All items can be collected, except the ones that are locked and have not been collected by this team
+            long lostMask = card.getLockedMask() & ~card.getCollectedMask(team);
+            possibleNumCollections[team.getId()] = card.getNumCells() - Long.bitCount(lostMask);
+        }
+
+        updateLeadingTeams(allTeams);
     }
 
     /**
@@ -64,7 +111,7 @@ public class WinConditionChecker {
      */
     public List<PlayerTeam> getCurrentWinners(BingoCard card, PlayerTeam team, Iterable<PlayerTeam> allTeams) {
         if (completionsToLock > 0) {
-            return getLockoutWinner(card, allTeams);
+            return getLockoutWinner(allTeams);
         }
 
         if (hasBingo(card, team)) {
@@ -80,10 +127,28 @@ public class WinConditionChecker {
     }
 
     /**
-     * [fallen's fork]
-     * add early hook
+     * Updates the tracked state by the delta of a single collection, should be called after the collection is
+     * registered on the card and before checking for winners.
+     * @param card The bingo card on which the collection happened.
+     * @param collectorTeam The team that collected the item.
+     * @param cellIndex The index of the cell of the collected item.
+     * @param allTeams All the teams participating.
      */
-    public void onCollection(BingoCard card, PlayerTeam collectorTeam, Iterable<PlayerTeam> allTeams) {
+    public void onCollection(BingoCard card, PlayerTeam collectorTeam, int cellIndex, Iterable<PlayerTeam> allTeams) {
+        // Only the lines through the collected cell can have been completed by this collection
+        numLinesComplete[collectorTeam.getId()] += card.getNumLinesCompleteThrough(collectorTeam, cellIndex);
+
+        // If this collection locked the item, the teams that have not collected it can no longer do so
+        BingoItem bingoItem = card.getBingoItem(cellIndex);
+        if (completionsToLock > 0 && bingoItem.getNumCollectors() == completionsToLock) {
+            for (PlayerTeam team : allTeams) {
+                if (!bingoItem.hasCollected(team)) {
+                    possibleNumCollections[team.getId()]--;
+                }
+            }
+        }
+
+        // fallen's fork: add for "quidditch" mode
         // update the GotGoldenSnitch flag for teams
         if (hasBingo(card, collectorTeam)) {
             boolean flag = true;
@@ -103,6 +168,24 @@ public class WinConditionChecker {
                 );
             }
         }
+
+        updateLeadingTeams(allTeams);
+    }
+
+    /**
+     * Recomputes the set of leading teams from the tracked scores.
+     * @param allTeams All the teams participating.
+     */
+    private void updateLeadingTeams(Iterable<PlayerTeam> allTeams) {
+        List<PlayerTeam> newLeadingTeams;
+        if (isQuidditchMode()) {
+            newLeadingTeams = decideQuidditchWinner(allTeams);
+        } else {
+            newLeadingTeams = findPotentialWinners(allTeams);
+        }
+
+        leadingTeams.clear();
+        leadingTeams.addAll(newLeadingTeams);
     }
 
     /**
@@ -124,38 +207,42 @@ public class WinConditionChecker {
 
     /**
      * Checks whether there is a winner in the 'lockout' game type.
-     * @param card The bingo card to check.
      * @param allTeams All the teams participating.
      * @return A list of teams that have won.
      */
-    private List<PlayerTeam> getLockoutWinner(BingoCard card, Iterable<PlayerTeam> allTeams) {
-        // If this method is called, the iterable of PlayerTeam instances is never empty
-        @SuppressWarnings("OptionalGetWithoutIsPresent")
-        int maxNumCollected = StreamSupport
-                .stream(allTeams.spliterator(), false)
-                .mapToInt(PlayerTeam::getNumCollected)
-                .max().getAsInt();
-
-        List<PlayerTeam> maxCollectionsTeams = StreamSupport
-                .stream(allTeams.spliterator(), false)
-                .filter(team -> team.getNumCollected() == maxNumCollected)
-                .collect(Collectors.toList());
-
-        for (PlayerTeam maxCollectionTeam : maxCollectionsTeams) {
-            for (PlayerTeam otherTeam : allTeams) {
-                if (otherTeam.equals(maxCollectionTeam)) {
-                    continue;
-                }
+    private List<PlayerTeam> getLockoutWinner(Iterable<PlayerTeam> allTeams) {
+        // The leading teams are the teams with the most collections, since the score is the number of collections
+        // in the 'lockout' game type
+        int maxNumCollected = leadingTeams.get(0).getNumCollected();
+
+        // Find the two teams with the highest number of possible collections, so that for each leading team
+        // we know the highest number of possible collections of the other teams
+        PlayerTeam mostPossibleTeam = null;
+        int mostPossible = -1;
+        int secondMostPossible = -1;
+        for (PlayerTeam team : allTeams) {
+            int possible = possibleNumCollections[team.getId()];
+
+            if (possible > mostPossible) {
+                secondMostPossible = mostPossible;
+                mostPossible = possible;
+                mostPossibleTeam = team;
+            } else if (possible > secondMostPossible) {
+                secondMostPossible = possible;
+            }
+        }
 
-                // If this other team can collect at least the same number of items as the leading team
-                // currently has, then the leading team has not achieved victory yet
-                if (getPossibleNumCollections(card, otherTeam) > maxNumCollected) {
-                    return new ArrayList<>();
-                }
+        for (PlayerTeam maxCollectionTeam : leadingTeams) {
+            int otherMostPossible = maxCollectionTeam.equals(mostPossibleTeam) ? secondMostPossible : mostPossible;
+
+            // If another team can collect at least the same number of items as the leading team
+            // currently has, then the leading team has not achieved victory yet
+            if (otherMostPossible > maxNumCollected) {
+                return new ArrayList<>();
             }
         }
 
-        return maxCollectionsTeams;
+        return new ArrayList<>(leadingTeams);
     }
 
     /**
@@ -168,7 +255,7 @@ public class WinConditionChecker {
         if (fullCard) {
             return card.isCardComplete(team);
         } else {
-            return card.getNumLinesComplete(team) >= numLinesToComplete;
+            return numLinesComplete[team.getId()] >= numLinesToComplete;
         }
     }
 
@@ -204,19 +291,7 @@ public class WinConditionChecker {
      * @return The team that won.
      */
     public WinReason decideWinner(Iterable<PlayerTeam> teams, BingoCard bingoCard) {
-        List<PlayerTeam> potentialWinners = findMax(teams, t -> {
-            if (fullCard || completionsToLock > 0) {
-                return t.getNumCollected();
-            }
-
-            return bingoCard.getNumLinesComplete(t);
-        });
-
-        // If we have multiple potential winners, but we are playing with the "lines" objective, we can (potentially)
-        // break the tie by checking the total number of collected items
-        if (potentialWinners.size() > 1 && numLinesToComplete > 0) {
-            potentialWinners = findMax(potentialWinners, PlayerTeam::getNumCollected);
-        }
+        List<PlayerTeam> potentialWinners = findPotentialWinners(teams);
 
         WinReason winReason;
 
@@ -236,37 +311,57 @@ public class WinConditionChecker {
     }
 
     /**
-     * The number of items that the given team can potentially collect on the given bingo card.
-     * @param card The bingo card with items.
-     * @param team The team to calculate this for.
-     * @return An integer representing the number of items that can be collected.
+     * Finds the teams that would win if the game were decided now, based on the number of collections or the
+     * number of completed lines depending on the game type.
+     * @param teams The teams to choose from.
+     * @return A list containing the teams with the highest score.
      */
-    private int getPossibleNumCollections(BingoCard card, PlayerTeam team) {
-        // Keep track of how many items can be collected in total by this team
-        int possibleNumCollected = 0;
-
-        for (BingoItem[] bingoItems : card.getBingoItems()) {
-            for (BingoItem bingoItem : bingoItems) {
-                if (bingoItem.hasCollected(team)) {
-                    // If this item is locked, but has already been collected by the team, it still counts
-                    possibleNumCollected++;
-                } else if (!card.isItemLocked(bingoItem)) {
-                    // If the item is not yet locked, it is possible for this team to still collect it
-                    possibleNumCollected++;
-                }
+    private List<PlayerTeam> findPotentialWinners(Iterable<PlayerTeam> teams) {
+        List<PlayerTeam> potentialWinners = findMax(teams, t -> {
+            if (fullCard || completionsToLock > 0) {
+                return t.getNumCollected();
             }
+
+            return numLinesComplete[t.getId()];
+        });
+
+        // If we have multiple potential winners, but we are playing with the "lines" objective, we can (potentially)
+        // break the tie by checking the total number of collected items
+        if (potentialWinners.size() > 1 && numLinesToComplete > 0) {
+            potentialWinners = findMax(potentialWinners, PlayerTeam::getNumCollected);
         }
 
-        return possibleNumCollected;
+        return potentialWinners;
+    }
+
+    /**
+     * Get the number of lines that the given team has completed on the current card.
+     * @param team The team to get the number of lines for.
+     * @return The number of completed lines.
+     */
+    public int getNumLinesComplete(PlayerTeam team) {
+        return numLinesComplete[team.getId()];
+    }
+
+    /**
+     * Get the teams that are currently leading the game. In 'quidditch' mode this is based on the quidditch score,
+     * otherwise it is based on the same score as {@link #decideWinner}.
+     * @return A list of the currently leading teams.
+     */
+    public List<PlayerTeam> getLeadingTeams() {
+        return leadingTeams;
     }
 
     /**
      * Sets the number of lines to complete in order to win.
-     * @param numLinesToComplete The number of lines to complete; must be between 1 (inclusive) and 10 (inclusive).
+     * @param numLinesToComplete The number of lines to complete; must be between 1 (inclusive) and the number of
+     *                           rows and columns on the board (inclusive).
      */
     public void setNumLinesToComplete(int numLinesToComplete, boolean quidditchMode) {
-        if (numLinesToComplete < 1 || numLinesToComplete > 10) {
-            throw new IllegalArgumentException("Cannot set number of lines completed to less than 1 or more than 10");
+        if (numLinesToComplete < 1 || numLinesToComplete > maxNumLinesToComplete) {
+            throw new IllegalArgumentException(
+                    "Cannot set number of lines completed to less than 1 or more than " + maxNumLinesToComplete
+            );
         }
 
         this.fullCard = false;
@@ -277,7 +372,8 @@ public class WinConditionChecker {
 
     /**
      * Sets the number of lines to complete in order to win
-     * @param numLinesToComplete The number of lines to complete; must be between 1 (inclusive) and 10 (inclusive)
+     * @param numLinesToComplete The number of lines to complete; must be between 1 (inclusive) and the number of
+     *                           rows and columns on the board (inclusive)
      */
     public void setNumLinesToComplete(int numLinesToComplete) {
         this.setNumLinesToComplete(numLinesToComplete, false);
@@ -287,6 +383,10 @@ public class WinConditionChecker {
         return numLinesToComplete;
     }
 
+    public int getMaxNumLinesToComplete() {
+        return maxNumLinesToComplete;
+    }
+
     public boolean isQuidditchMode() {
         return quidditchMode;
     }
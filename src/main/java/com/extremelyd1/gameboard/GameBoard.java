@@ -58,11 +58,21 @@ public class GameBoard {
 
     /**
      * Updates this board by updating all board entries and resetting the prefixes of players
+     */
+    public void update() {
+        updateEntries();
+        updateTeamColors();
+    }
+
+    /**
+     * Updates the board entries of this board, without touching the prefixes of players.
+     * Should be used when only the values on the board changed, since updating the team colors requires
+     * a pass over all online players.
      * The following steps are taken to update the board efficiently.
      * - Remove scores that no longer exist in the board
      * - Update the board to the most recent scores which will add new values/update existing ones
      */
-    public void update() {
+    protected void updateEntries() {
         //Remove entries that no longer exist
         for (String entry : this.scoreboard.getEntries()) {
             boolean entryStillExists = false;
@@ -83,8 +93,13 @@ public class GameBoard {
         for (int i = 0; i < boardEntries.size(); i++) {
             this.objective.getScore(boardEntries.get(i).getString()).setScore(boardEntries.size() - i);
         }
+    }
 
-        // Update team colors
+    /**
+     * Updates the prefixes of players by putting them in the scoreboard team of their game team.
+     * Scoreboard teams are keyed by the game team name, since multiple game teams can share a color.
+     */
+    protected void updateTeamColors() {
         for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
             com.extremelyd1.game.team.Team gameTeam = game.getTeamManager().getTeamByPlayer(onlinePlayer);
             if (gameTeam == null) {
@@ -98,12 +113,12 @@ public class GameBoard {
                 continue;
             }
 
-            // Get scoreboard team with color enum name
-            Team scoreboardTeam = scoreboard.getTeam(gameTeam.getColor().name());
+            // Get scoreboard team with team name
+            Team scoreboardTeam = scoreboard.getTeam(gameTeam.getName());
 
             if (scoreboardTeam == null) {
-                // Create new scoreboard team with color enum name
-                scoreboardTeam = scoreboard.registerNewTeam(gameTeam.getColor().name());
+                // Create new scoreboard team with team name
+                scoreboardTeam = scoreboard.registerNewTeam(gameTeam.getName());
 
                 // Set prefix to color code
                 scoreboardTeam.setColor(gameTeam.getColor());
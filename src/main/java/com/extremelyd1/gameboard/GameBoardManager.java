@@ -3,7 +3,6 @@ package com.extremelyd1.gameboard;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
 import com.extremelyd1.game.team.Team;
-import com.extremelyd1.game.winCondition.WinReason;
 import org.bukkit.Bukkit;
 
 import java.util.HashMap;
@@ -25,6 +24,10 @@ public class GameBoardManager {
      * A mapping from team to the respective in-game board
      */
     private Map<Team, IngameBoard> inGameBoards;
+    /**
+     * The leading team that is currently shown on the in-game boards, or null if a tie is shown
+     */
+    private PlayerTeam shownLeadingTeam;
 
     /**
      * Whether this manager is initialized.
@@ -52,6 +55,7 @@ public class GameBoardManager {
         if (inGameBoards == null) {
             inGameBoards = new HashMap<>();
         }
+        shownLeadingTeam = null;
 
         for (PlayerTeam team : teams) {
             inGameBoards.put(team, new IngameBoard(game, team));
@@ -88,31 +92,21 @@ public class GameBoardManager {
 
             if (game.getConfig().showCurrentlyWinningTeam()) {
 
+                // The checker keeps track of the leading teams, so we only need to check for a tie
                 PlayerTeam leadingTeam = null;
 
-                // fallen's fork: add for "quidditch" mode
-                if (game.getWinConditionChecker().isQuidditchMode()) {
-                    List<PlayerTeam> teams = game.getWinConditionChecker().decideQuidditchWinner(
-                            game.getTeamManager().getActiveTeams()
-                    );
-                    if (teams.size() == 1) {
-                        leadingTeam = teams.get(0);
-                    }
-                } else {
-                    // Obtain a preliminary win reason
-                    WinReason winReason = game.getWinConditionChecker().decideWinner(
-                            game.getTeamManager().getActiveTeams(),
-                            game.getBingoCard()
-                    );
-
-                    // Based on this win reason update the in-game boards
-                    if (!winReason.getReason().equals(WinReason.Reason.RANDOM_TIE)) {
-                        leadingTeam = winReason.getTeam();
-                    }
+                List<PlayerTeam> leadingTeams = game.getWinConditionChecker().getLeadingTeams();
+                if (leadingTeams.size() == 1) {
+                    leadingTeam = leadingTeams.get(0);
                 }
 
-                for (IngameBoard ingameBoard : inGameBoards.values()) {
-                    ingameBoard.updateWinningTeam(leadingTeam);
+                // Only update all boards if the leading team changed, since most collections do not change it
+                if (leadingTeam != shownLeadingTeam) {
+                    shownLeadingTeam = leadingTeam;
+
+                    for (IngameBoard ingameBoard : inGameBoards.values()) {
+                        ingameBoard.updateWinningTeam(leadingTeam);
+                    }
                 }
             }
         }
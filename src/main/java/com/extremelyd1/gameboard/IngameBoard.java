@@ -102,7 +102,7 @@ public class IngameBoard extends GameBoard {
     public void updateNumItems(int numItems) {
         numItemsEntry.setValue(numItems);
 
-        super.update();
+        updateEntries();
     }
 
     /**
@@ -112,7 +112,7 @@ public class IngameBoard extends GameBoard {
     public void updateTime(long timeLeft) {
         timeLeftEntry.setValue(TimeUtil.formatTimeLeft(timeLeft));
 
-        super.update();
+        updateEntries();
     }
 
     /**
@@ -130,7 +130,7 @@ public class IngameBoard extends GameBoard {
             winningTeamEntry.setValue(team.getColor() + team.getName());
         }
 
-        super.update();
+        updateEntries();
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.extremelyd1.listener;
 
+import com.extremelyd1.bingo.map.BingoCardItemFactory;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
 import com.extremelyd1.game.team.Team;
@@ -11,7 +12,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
-import org.bukkit.inventory.ItemStack;
 
 public class DeathListener implements Listener {
 
@@ -26,14 +26,9 @@ public class DeathListener implements Listener {
 
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent e) {
-        for (int i = 0; i < e.getDrops().size(); i++) {
-            ItemStack itemStack = e.getDrops().get(i);
-            if (itemStack.getItemMeta() != null
-                    && itemStack.getItemMeta().getDisplayName().contains("Bingo Card")) {
-                e.getDrops().remove(i);
-                i--;
-            }
-        }
+        BingoCardItemFactory factory = game.getBingoCardItemFactory();
+        e.getDrops().removeIf(factory::isBingoCard);
+        factory.invalidateBingoCardSlot(e.getEntity());
 
         e.setDeathMessage(StringUtil.replaceNamesWithTeamColors(
                 e.getDeathMessage(),
@@ -59,9 +54,8 @@ public class DeathListener implements Listener {
                 e.setRespawnLocation(playerTeam.getSpawnLocation());
             }
 
-            player.getInventory().addItem(
-                    game.getBingoCardItemFactory().create(game.getBingoCard(), playerTeam)
-            );
+            BingoCardItemFactory factory = game.getBingoCardItemFactory();
+            factory.giveBingoCard(player, factory.create(game.getBingoCard(), playerTeam));
             player.sendMessage(
                     Game.PREFIX + "You have been given a new bingo card"
             );
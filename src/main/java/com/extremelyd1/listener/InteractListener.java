@@ -1,5 +1,6 @@
 package com.extremelyd1.listener;
 
+import com.extremelyd1.bingo.BingoCardInventory;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
 import com.extremelyd1.game.team.Team;
@@ -10,6 +11,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.RandomizableContainerBlockEntity;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -33,7 +35,6 @@ import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.player.PlayerInteractAtEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.*;
-import org.bukkit.inventory.meta.ItemMeta;
 
 public class InteractListener implements Listener {
 
@@ -133,13 +134,7 @@ public class InteractListener implements Listener {
             return;
         }
 
-        ItemStack itemStack = e.getItem();
-        if (!itemStack.hasItemMeta()) {
-            return;
-        }
-
-        ItemMeta meta = itemStack.getItemMeta();
-        if (!meta.getDisplayName().contains("Bingo Card")) {
+        if (!game.getBingoCardItemFactory().isBingoCard(e.getItem())) {
             return;
         }
 
@@ -148,7 +143,7 @@ public class InteractListener implements Listener {
             return;
         }
 
-        game.getBingoCard().getBingoCardInventory().show(e.getPlayer());
+        game.getBingoCard().getBingoCardInventory().show(e.getPlayer(), team);
     }
 
     @EventHandler
@@ -198,19 +193,27 @@ public class InteractListener implements Listener {
 
         if (e.getClick().equals(ClickType.MIDDLE)) {
             ItemStack itemStack = e.getCurrentItem();
-            if (itemStack != null
-                    && itemStack.hasItemMeta()
-                    && itemStack.getItemMeta().getDisplayName().contains("Bingo Card")) {
+            if (game.getBingoCardItemFactory().isBingoCard(itemStack)) {
                 Team team = game.getTeamManager().getTeamByPlayer(player);
                 if (team == null || team.isSpectatorTeam()) {
                     return;
                 }
 
-                game.getBingoCard().getBingoCardInventory().show((Player) e.getWhoClicked());
+                game.getBingoCard().getBingoCardInventory().show(player, team);
             }
         }
 
         if (e.getView().getTitle().contains("Bingo Card")) {
+            // Open another page of the bingo card inventory if a navigation item was clicked.
+            // The inventory is opened on the next tick, since it should not be opened from within a click event
+            BingoCardInventory bingoCardInventory = game.getBingoCard().getBingoCardInventory();
+            Inventory targetPage = bingoCardInventory.getNavigationTarget(e.getClickedInventory(), e.getSlot());
+            if (targetPage != null) {
+                Bukkit.getScheduler().runTask(game.getPlugin(), () -> player.openInventory(targetPage));
+
+                e.setCancelled(true);
+                return;
+            }
 
             // fallen's fork: in-game notification by clicking items in the bingo card, starts
             Team team = game.getTeamManager().getTeamByPlayer(player);
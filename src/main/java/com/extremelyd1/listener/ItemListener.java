@@ -21,7 +21,6 @@ import org.bukkit.event.player.PlayerInteractAtEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
-import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -73,9 +72,7 @@ public class ItemListener implements Listener {
             return;
         }
 
-        ItemMeta itemMeta = e.getItemDrop().getItemStack().getItemMeta();
-
-        if (itemMeta != null && itemMeta.getDisplayName().contains("Bingo Card")) {
+        if (game.getBingoCardItemFactory().isBingoCard(e.getItemDrop().getItemStack())) {
             e.setCancelled(true);
         }
     }
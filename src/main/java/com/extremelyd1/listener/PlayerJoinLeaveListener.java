@@ -1,5 +1,6 @@
 package com.extremelyd1.listener;
 
+import com.extremelyd1.bingo.map.BingoCardItemFactory;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.game.team.PlayerTeam;
 import com.extremelyd1.game.team.Team;
@@ -12,8 +13,6 @@ import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.UUID;
-
 public class PlayerJoinLeaveListener implements Listener {
 
     /**
@@ -50,18 +49,9 @@ public class PlayerJoinLeaveListener implements Listener {
         }
 
         if (!game.getState().equals(Game.State.PRE_GAME)) {
-            for (PlayerTeam team : game.getTeamManager().getActiveTeams()) {
-                for (UUID uuid : team.getUUIDs()) {
-                    if (uuid.equals(e.getUniqueId())) {
-                        return;
-                    }
-                }
-            }
-
-            for (UUID uuid : game.getTeamManager().getSpectatorTeam().getUUIDs()) {
-                if (uuid.equals(e.getUniqueId())) {
-                    return;
-                }
+            // Players that are on a team, including spectators, can always rejoin
+            if (game.getTeamManager().getTeamByUUID(e.getUniqueId()) != null) {
+                return;
             }
 
             // fallen's fork: allow player join in mid-game
@@ -94,6 +84,8 @@ public class PlayerJoinLeaveListener implements Listener {
             player.setBedSpawnLocation(spawnLocation);
         }
 
+        game.getTeamManager().onPlayerJoin(player);
+
         Team team = game.getTeamManager().getTeamByPlayer(player);
         if (team == null) {
             game.getTeamManager().addPlayerToTeam(player, game.getTeamManager().getSpectatorTeam(), false);
@@ -111,11 +103,10 @@ public class PlayerJoinLeaveListener implements Listener {
             player.setGameMode(GameMode.SPECTATOR);
 
             // fallen's fork: give bingo cards of all teams to the spectator player
-            if (!ItemUtil.hasBingoCard(player)) {
+            BingoCardItemFactory factory = game.getBingoCardItemFactory();
+            if (!ItemUtil.hasBingoCard(player, factory)) {
                 for (PlayerTeam t : game.getTeamManager().getActiveTeams()) {
-                    player.getInventory().addItem(
-                            game.getBingoCardItemFactory().create(game.getBingoCard(), t)
-                    );
+                    factory.giveBingoCard(player, factory.create(game.getBingoCard(), t));
                 }
             }
         }
@@ -135,6 +126,9 @@ public class PlayerJoinLeaveListener implements Listener {
 
         Player player = e.getPlayer();
 
+        game.getTeamManager().onPlayerQuit(player);
+        game.getBingoCardItemFactory().invalidateBingoCardSlot(player);
+
         Team team = game.getTeamManager().getTeamByPlayer(player);
         if (team == null) {
             e.setQuitMessage(
@@ -9,17 +9,29 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class Bingo extends JavaPlugin {
+    /**
+     * The game instance, or null if the game could not be created
+     */
+    private Game game;
+
     @Override
     public void onEnable() {
         getLogger().info("Creating Game instance");
         try {
-            new Game(this);
+            game = new Game(this);
         } catch (IllegalArgumentException e) {
             getLogger().severe(String.format("Could not start plugin: %s", e.getMessage()));
             Bukkit.getPluginManager().disablePlugin(this);
         }
     }
 
+    @Override
+    public void onDisable() {
+        if (game != null) {
+            game.onDisable();
+        }
+    }
+
     @Override
     public @Nullable ChunkGenerator getDefaultWorldGenerator(@NotNull String worldName, @Nullable String id) {
         return new BingoChunkGenerator();
@@ -9,34 +9,46 @@ import org.bukkit.inventory.ItemStack;
 public class ItemUtil {
 
     /**
-     * Updates the bingo card itemstack in each of the team's player's inventories
+     * Updates the bingo card of the given team, which updates the itemstacks in the inventories of all players
+     * holding a card of the team, and gives a new bingo card to the team's players that do not have one
      * @param team The team for which to update
      * @param factory The bingo card item factory from which to create the itemstack
      */
     public static void updateBingoCard(BingoCard bingoCard, PlayerTeam team, BingoCardItemFactory factory) {
-        for (Player player : team.getPlayers()) {
-            boolean itemFound = false;
-
-            // Loop over the contents of the player's inventory and try to find an existing bingo card item stack
-            for (int i = 0; i < player.getInventory().getContents().length; i++) {
-                ItemStack itemStack = player.getInventory().getContents()[i];
-                if (itemStack == null) {
-                    continue;
-                }
-
-                if (itemStack.getItemMeta() != null
-                        && itemStack.getItemMeta().getDisplayName().contains("Bingo Card")) {
-                    factory.updateBingoCardItemStack(itemStack, bingoCard, team);
+        // All bingo card items of the team share their map views, so they only need to be drawn once
+        factory.updateBingoCards(bingoCard, team);
 
-                    itemFound = true;
-
-                    break;
-                }
+        for (Player player : team.getPlayers()) {
+            // If the player has no bingo card, we create a new one
+            if (!hasBingoCard(player, factory)) {
+                factory.giveBingoCard(player, factory.create(
+                        bingoCard,
+                        team
+                ));
             }
+        }
+    }
 
-            // There was no item stack found, so we create a new one
-            if (!itemFound) {
-                player.getInventory().addItem(factory.create(
+    /**
+     * Updates a single cell of the bingo card of the given team, which updates the itemstacks in the inventories
+     * of all players holding a card of the team, and gives a new bingo card to the team's players that do not
+     * have one
+     * @param team The team for which to update
+     * @param factory The bingo card item factory from which to create the itemstack
+     * @param cellIndex The index of the cell that changed
+     */
+    public static void updateBingoCardCell(
+            BingoCard bingoCard,
+            PlayerTeam team,
+            BingoCardItemFactory factory,
+            int cellIndex
+    ) {
+        factory.updateBingoCardCell(bingoCard, team, cellIndex);
+
+        for (Player player : team.getPlayers()) {
+            // If the player has no bingo card, we create a new one
+            if (!hasBingoCard(player, factory)) {
+                factory.giveBingoCard(player, factory.create(
                         bingoCard,
                         team
                 ));
@@ -47,31 +59,26 @@ public class ItemUtil {
     /**
      * Checks whether the given player has a bingo card itemstack in their inventory
      * @param player The player to check
+     * @param factory The bingo card item factory that created the bingo card items
      * @return Whether the player has the bingo card itemstack in their inventory
      */
-    public static boolean hasBingoCard(Player player) {
-        return getBingoCardItemStack(player) != null;
+    public static boolean hasBingoCard(Player player, BingoCardItemFactory factory) {
+        return factory.findBingoCardSlot(player) != -1;
     }
 
     /**
      * Get the itemstack of the bingo card from the given player
      * @param player The player to get the itemstack from
-     * @return The ItemStack of the bingo card item
+     * @param factory The bingo card item factory that created the bingo card items
+     * @return The ItemStack of the bingo card item, or null if the player has no bingo card
      */
-    public static ItemStack getBingoCardItemStack(Player player) {
-        for (int i = 0; i < player.getInventory().getContents().length; i++) {
-            ItemStack itemStack = player.getInventory().getContents()[i];
-            if (itemStack == null) {
-                continue;
-            }
-
-            if (itemStack.getItemMeta() != null
-                    && itemStack.getItemMeta().getDisplayName().contains("Bingo Card")) {
-                return itemStack;
-            }
+    public static ItemStack getBingoCardItemStack(Player player, BingoCardItemFactory factory) {
+        int slot = factory.findBingoCardSlot(player);
+        if (slot == -1) {
+            return null;
         }
 
-        return null;
+        return player.getInventory().getItem(slot);
     }
 
 }
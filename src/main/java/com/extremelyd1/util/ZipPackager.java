@@ -0,0 +1,752 @@
+package com.extremelyd1.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Packages directories into zip files.
+ * Files are compressed in parallel on a dedicated pool of threads and written to the zip in order with large
+ * buffers. Files are streamed through fixed-size buffers: small files are deflated in memory, within a bound on the
+ * number of bytes that are waiting to be written, and larger files are deflated into a temporary file. Files that
+ * are already compressed are stored as is, apart from region files, which are deflated lightly to remove the padding
+ * between their sectors. New entries are appended to an existing zip file without rewriting the entries that are
+ * already in it.
+ */
+public class ZipPackager {
+
+    /**
+     * The size of the buffer that the zip file is written with
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    /**
+     * The size of the buffers that files are read and deflated with
+     */
+    private static final int DEFLATE_BUFFER_SIZE = 1 << 16;
+    /**
+     * The maximum number of files that are compressed ahead of the file that is being written
+     */
+    private static final int MAX_FILES_AHEAD = Runtime.getRuntime().availableProcessors() * 2;
+    /**
+     * The maximum number of bytes of files that are deflated in memory ahead of the file that is being written,
+     * which bounds the heap memory that a single packaging uses for compressed files waiting to be written
+     */
+    public static final long MAX_BUFFERED_BYTES = 64L * 1024 * 1024;
+    /**
+     * The size above which a file is deflated into a temporary file instead of in memory
+     */
+    private static final long MAX_IN_MEMORY_FILE_SIZE = 8L * 1024 * 1024;
+    /**
+     * The executor of the threads that compress files, which is shared by all packagings so that compression does
+     * not compete with other work on the common fork-join pool and never uses more threads than there are processors
+     */
+    private static final ExecutorService COMPRESSION_EXECUTOR = createCompressionExecutor();
+    /**
+     * The extension of region files, which consist of individually compressed chunks padded to 4 KiB sectors
+     */
+    private static final String REGION_FILE_EXTENSION = ".mca";
+    /**
+     * The extensions of files that are already compressed as a whole and are stored without compression
+     */
+    private static final List<String> COMPRESSED_FILE_EXTENSIONS = List.of(".dat", ".dat_old", ".gz", ".zip", ".png");
+
+    /**
+     * The signature of a local file header
+     */
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    /**
+     * The signature of a central directory file header
+     */
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    /**
+     * The signature of the end of central directory record
+     */
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    /**
+     * The size of the end of central directory record without comment
+     */
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    /**
+     * The size of a central directory file header without name, extra field and comment
+     */
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    /**
+     * The zip version that is needed to extract the entries, which is 2.0 for deflate
+     */
+    private static final int ZIP_VERSION = 20;
+    /**
+     * The general purpose flag that indicates that entry names are encoded as UTF-8
+     */
+    private static final int UTF8_FLAG = 0x0800;
+    /**
+     * The compression method of entries that are stored without compression
+     */
+    private static final int METHOD_STORED = 0;
+    /**
+     * The compression method of deflated entries
+     */
+    private static final int METHOD_DEFLATED = 8;
+    /**
+     * The maximum value of a 32-bit size or offset, above which zip64 would be needed
+     */
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+    /**
+     * The maximum number of entries, above which zip64 would be needed
+     */
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    /**
+     * The result of packaging a directory
+     * @param numFiles The number of files that were packaged
+     * @param uncompressedSize The total size of the files in bytes
+     * @param compressedSize The total size of the files in the zip in bytes
+     * @param duration The time it took to package the files in nanoseconds
+     */
+    public record Result(int numFiles, long uncompressedSize, long compressedSize, long duration) {
+
+        /**
+         * Get the compressed size as a percentage of the uncompressed size
+         * @return The compression ratio in percent
+         */
+        public double getRatio() {
+            return uncompressedSize == 0 ? 100 : 100.0 * compressedSize / uncompressedSize;
+        }
+
+        /**
+         * Get the number of uncompressed bytes that were packaged per second
+         * @return The throughput in MiB per second
+         */
+        public double getThroughput() {
+            return duration == 0 ? 0 : uncompressedSize / (1024.0 * 1024.0) / (duration / 1e9);
+        }
+    }
+
+    /**
+     * A file that has been compressed and is ready to be written to the zip
+     * @param name The name of the entry
+     * @param method The compression method
+     * @param crc The CRC-32 of the uncompressed data
+     * @param size The uncompressed size
+     * @param data The buffer holding the (compressed) data, or null if the data is streamed from the data file
+     * @param dataFile The file that the data is streamed from if it is not held in memory
+     * @param isTemporary Whether the data file is a temporary file that should be deleted once it is written
+     * @param dataLength The number of bytes of (compressed) data
+     * @param dosTime The modification time and date in MS-DOS format
+     */
+    private record CompressedEntry(
+            byte[] name,
+            int method,
+            long crc,
+            long size,
+            byte[] data,
+            Path dataFile,
+            boolean isTemporary,
+            long dataLength,
+            long dosTime
+    ) {
+    }
+
+    /**
+     * A file that is being compressed
+     * @param future The future of the compressed entry
+     * @param bufferedBytes The number of bytes that the file takes up in memory until it is written
+     */
+    private record PendingEntry(CompletableFuture<CompressedEntry> future, long bufferedBytes) {
+    }
+
+    /**
+     * The central directory of an existing zip file
+     * @param offset The offset of the central directory in the zip file
+     * @param records The raw central directory file headers
+     * @param numEntries The number of entries in the central directory
+     */
+    private record CentralDirectory(long offset, byte[] records, int numEntries) {
+    }
+
+    /**
+     * Packages all files in the given directory into the given zip file, under the given directory name.
+     * If the zip file already exists, the files are appended to it.
+     * @param zipFile The destination zip file
+     * @param dir The directory to package
+     * @param dirName The name of the directory in the zip
+     * @return The result of the packaging
+     * @throws IOException If the files could not be packaged, in which case the zip file is left as it was
+     */
+    public static Result pack(File zipFile, File dir, String dirName) throws IOException {
+        long startTime = System.nanoTime();
+
+        Path root = dir.toPath();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        boolean isNewFile = !zipFile.exists();
+        try (FileChannel channel = FileChannel.open(
+                zipFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            long originalSize = channel.size();
+            CentralDirectory existing = originalSize == 0
+                    ? new CentralDirectory(0, new byte[0], 0)
+                    : readCentralDirectory(channel, dirName);
+
+            // Keep the original central directory, so that it can be restored if packaging fails
+            ByteBuffer originalTail = ByteBuffer.allocate((int) (originalSize - existing.offset()));
+            channel.read(originalTail, existing.offset());
+
+            try {
+                Path tempDir = zipFile.getAbsoluteFile().getParentFile().toPath();
+                return write(channel, existing, root, dirName, files, tempDir, startTime);
+            } catch (IOException | RuntimeException e) {
+                originalTail.flip();
+                channel.write(originalTail, existing.offset());
+                channel.truncate(originalSize);
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (isNewFile) {
+                Files.deleteIfExists(zipFile.toPath());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given files to the given zip file channel in place of the existing central directory, followed by
+     * the existing and the new central directory records
+     * @param channel The channel of the zip file
+     * @param existing The existing central directory
+     * @param root The directory that is packaged
+     * @param dirName The name of the directory in the zip
+     * @param files The files in the directory
+     * @param tempDir The directory in which large files are deflated into temporary files
+     * @param startTime The start time of the packaging in nanoseconds
+     * @return The result of the packaging
+     * @throws IOException If the files could not be packaged
+     */
+    private static Result write(
+            FileChannel channel,
+            CentralDirectory existing,
+            Path root,
+            String dirName,
+            List<Path> files,
+            Path tempDir,
+            long startTime
+    ) throws IOException {
+        if (existing.numEntries() + files.size() > MAX_ZIP32_ENTRIES) {
+            throw new IOException("Too many entries for a zip file without zip64");
+        }
+
+        channel.position(existing.offset());
+        CountingOutputStream out = new CountingOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE),
+                existing.offset()
+        );
+        ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+        centralDirectory.write(existing.records());
+
+        long uncompressedSize = 0;
+        long compressedSize = 0;
+
+        // Compress the files in parallel, while writing them in order
+        Deque<PendingEntry> compressing = new ArrayDeque<>();
+        long bufferedBytes = 0;
+        int nextFile = 0;
+        try {
+            while (nextFile < files.size() || !compressing.isEmpty()) {
+                while (nextFile < files.size() && compressing.size() < MAX_FILES_AHEAD) {
+                    Path file = files.get(nextFile);
+                    String name = dirName + "/" + root.relativize(file).toString().replace(File.separatorChar, '/');
+                    long fileSize = Files.size(file);
+                    long fileBytes = isDeflatedInMemory(name, fileSize) ? fileSize : 0;
+
+                    // A file is always started if no other file is being compressed, so that packaging progresses
+                    if (!compressing.isEmpty() && bufferedBytes + fileBytes > MAX_BUFFERED_BYTES) {
+                        break;
+                    }
+
+                    nextFile++;
+                    bufferedBytes += fileBytes;
+                    compressing.add(new PendingEntry(
+                            CompletableFuture.supplyAsync(() -> compress(file, name, tempDir), COMPRESSION_EXECUTOR),
+                            fileBytes
+                    ));
+                }
+
+                PendingEntry pending = compressing.poll();
+                CompressedEntry entry;
+                try {
+                    entry = pending.future().join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                        throw uncheckedIOException.getCause();
+                    }
+                    throw e;
+                }
+                bufferedBytes -= pending.bufferedBytes();
+
+                try {
+                    writeEntry(out, centralDirectory, entry);
+                } finally {
+                    deleteTemporaryFile(entry);
+                }
+
+                uncompressedSize += entry.size();
+                compressedSize += entry.dataLength();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Let the files that are still being compressed finish, and clean up the ones that use a temporary file
+            for (PendingEntry pending : compressing) {
+                pending.future().thenAccept(ZipPackager::deleteTemporaryFile);
+            }
+            throw e;
+        }
+
+        long centralDirectoryOffset = out.getPosition();
+        if (centralDirectoryOffset > MAX_ZIP32_VALUE) {
+            throw new IOException("Zip file is too large without zip64");
+        }
+        centralDirectory.writeTo(out);
+
+        writeInt(out, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, existing.numEntries() + files.size());
+        writeShort(out, existing.numEntries() + files.size());
+        writeInt(out, centralDirectory.size());
+        writeInt(out, (int) centralDirectoryOffset);
+        writeShort(out, 0);
+        out.flush();
+
+        channel.truncate(out.getPosition());
+
+        return new Result(files.size(), uncompressedSize, compressedSize, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Writes the local file header and data of the given entry to the zip, and its central directory file header
+     * to the given central directory
+     * @param out The stream of the zip file
+     * @param centralDirectory The stream of the central directory that is written after all entries
+     * @param entry The entry to write
+     * @throws IOException If the entry could not be written or does not fit in a zip file without zip64
+     */
+    private static void writeEntry(
+            CountingOutputStream out,
+            ByteArrayOutputStream centralDirectory,
+            CompressedEntry entry
+    ) throws IOException {
+        long localHeaderOffset = out.getPosition();
+        if (localHeaderOffset > MAX_ZIP32_VALUE
+                || entry.size() > MAX_ZIP32_VALUE
+                || entry.dataLength() > MAX_ZIP32_VALUE) {
+            throw new IOException("Zip file is too large without zip64");
+        }
+
+        writeInt(out, LOCAL_FILE_HEADER_SIGNATURE);
+        writeEntryHeader(out, entry);
+        writeShort(out, 0);
+        out.write(entry.name());
+        writeData(out, entry);
+
+        writeInt(centralDirectory, CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+        writeShort(centralDirectory, ZIP_VERSION);
+        writeEntryHeader(centralDirectory, entry);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeInt(centralDirectory, 0);
+        writeInt(centralDirectory, (int) localHeaderOffset);
+        centralDirectory.write(entry.name());
+    }
+
+    /**
+     * Writes the (compressed) data of the given entry, streaming it from its data file if it is not held in memory
+     * @param out The stream to write to
+     * @param entry The entry to write the data of
+     * @throws IOException If the data could not be read or written, or the data file became shorter
+     */
+    private static void writeData(OutputStream out, CompressedEntry entry) throws IOException {
+        if (entry.data() != null) {
+            out.write(entry.data(), 0, (int) entry.dataLength());
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(entry.dataFile())) {
+            byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+            long remaining = entry.dataLength();
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("File changed while it was being packaged: " + entry.dataFile());
+                }
+
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary data file of the given entry, if it has one
+     * @param entry The entry
+     */
+    private static void deleteTemporaryFile(CompressedEntry entry) {
+        if (!entry.isTemporary()) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(entry.dataFile());
+        } catch (IOException e) {
+            entry.dataFile().toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * Reads the central directory of the given existing zip file
+     * @param channel The channel of the zip file
+     * @param dirName The name of the directory that will be added, which should not be in the zip file yet
+     * @return The central directory
+     * @throws IOException If the zip file could not be read, is not a valid zip file, requires zip64 or already
+     * contains the directory
+     */
+    private static CentralDirectory readCentralDirectory(FileChannel channel, String dirName) throws IOException {
+        // The end of central directory record is at the end of the file, followed by a comment of at most 64 KiB
+        long size = channel.size();
+        int tailSize = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+        ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(tail, size - tailSize);
+
+        int recordStart = -1;
+        for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                    && i + END_OF_CENTRAL_DIRECTORY_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailSize) {
+                recordStart = i;
+                break;
+            }
+        }
+        if (recordStart == -1) {
+            throw new IOException("Existing file is not a valid zip file");
+        }
+
+        int numEntries = tail.getShort(recordStart + 10) & 0xFFFF;
+        long centralDirectorySize = tail.getInt(recordStart + 12) & MAX_ZIP32_VALUE;
+        long centralDirectoryOffset = tail.getInt(recordStart + 16) & MAX_ZIP32_VALUE;
+        if (numEntries == MAX_ZIP32_ENTRIES
+                || centralDirectorySize == MAX_ZIP32_VALUE
+                || centralDirectoryOffset == MAX_ZIP32_VALUE) {
+            throw new IOException("Existing zip file uses zip64, which is not supported");
+        }
+
+        ByteBuffer records = ByteBuffer.allocate((int) centralDirectorySize).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(records, centralDirectoryOffset);
+
+        // Entries cannot be replaced without rewriting the zip file, so refuse to add the directory twice
+        byte[] prefix = (dirName + "/").getBytes(StandardCharsets.UTF_8);
+        int position = 0;
+        for (int i = 0; i < numEntries; i++) {
+            int nameLength = records.getShort(position + 28) & 0xFFFF;
+            int extraLength = records.getShort(position + 30) & 0xFFFF;
+            int commentLength = records.getShort(position + 32) & 0xFFFF;
+
+            if (nameLength >= prefix.length
+                    && records.slice(position + CENTRAL_DIRECTORY_HEADER_SIZE, prefix.length).equals(ByteBuffer.wrap(prefix))) {
+                throw new IOException("Zip file already contains " + dirName);
+            }
+
+            position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return new CentralDirectory(centralDirectoryOffset, records.array(), numEntries);
+    }
+
+    /**
+     * Reads and compresses the given file, streaming it through fixed-size buffers. Small files are deflated in
+     * memory and large files into a temporary file in the given directory. Files that are stored without
+     * compression are only read to compute their checksum, and are streamed into the zip when they are written.
+     * @param file The file to compress
+     * @param name The name of the entry in the zip
+     * @param tempDir The directory in which large files are deflated into temporary files
+     * @return The compressed entry
+     * @throws UncheckedIOException If the file could not be read or compressed
+     */
+    private static CompressedEntry compress(Path file, String name, Path tempDir) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int level = getCompressionLevel(name);
+        CRC32 crc = new CRC32();
+
+        try {
+            long fileSize = Files.size(file);
+            long dosTime = toDosTime(Files.getLastModifiedTime(file).toMillis());
+
+            if (level == Deflater.NO_COMPRESSION) {
+                long size = readFile(file, crc, OutputStream.nullOutputStream());
+                return new CompressedEntry(nameBytes, METHOD_STORED, crc.getValue(), size, null, file, false, size, dosTime);
+            }
+
+            DeflatedBuffer buffer = null;
+            Path tempFile = null;
+            if (isDeflatedInMemory(name, fileSize)) {
+                buffer = new DeflatedBuffer((int) (fileSize / 2 + 64));
+            } else {
+                tempFile = Files.createTempFile(tempDir, "bingo-zip-", ".tmp");
+            }
+
+            long size;
+            long deflatedSize;
+            Deflater deflater = new Deflater(level, true);
+            try {
+                try (OutputStream dataOut = buffer != null ? buffer : Files.newOutputStream(tempFile);
+                     DeflaterOutputStream deflaterOut = new DeflaterOutputStream(dataOut, deflater, DEFLATE_BUFFER_SIZE)) {
+                    size = readFile(file, crc, deflaterOut);
+                }
+
+                deflatedSize = buffer != null ? buffer.size() : Files.size(tempFile);
+            } catch (IOException | RuntimeException e) {
+                if (tempFile != null) {
+                    Files.deleteIfExists(tempFile);
+                }
+                throw e;
+            } finally {
+                deflater.end();
+            }
+
+            // Only keep the deflated data if it is actually smaller, and otherwise store the file as is
+            if (deflatedSize < size) {
+                return new CompressedEntry(
+                        nameBytes,
+                        METHOD_DEFLATED,
+                        crc.getValue(),
+                        size,
+                        buffer != null ? buffer.getBuffer() : null,
+                        tempFile,
+                        tempFile != null,
+                        deflatedSize,
+                        dosTime
+                );
+            }
+
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+
+            return new CompressedEntry(nameBytes, METHOD_STORED, crc.getValue(), size, null, file, false, size, dosTime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the given file in chunks, updating the given checksum and writing the chunks to the given stream
+     * @param file The file to read
+     * @param crc The checksum to update
+     * @param out The stream to write the contents of the file to
+     * @return The number of bytes that were read
+     * @throws IOException If the file could not be read or the stream could not be written to
+     */
+    private static long readFile(Path file, CRC32 crc, OutputStream out) throws IOException {
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Whether the file with the given name and size is deflated in memory, rather than stored or deflated into a
+     * temporary file
+     * @param name The name of the file
+     * @param size The size of the file in bytes
+     * @return True if the file is deflated in memory, false otherwise
+     */
+    private static boolean isDeflatedInMemory(String name, long size) {
+        return getCompressionLevel(name) != Deflater.NO_COMPRESSION && size <= MAX_IN_MEMORY_FILE_SIZE;
+    }
+
+    /**
+     * Get the deflate compression level for the file with the given name
+     * @param name The name of the file
+     * @return The compression level, or NO_COMPRESSION if the file should be stored
+     */
+    private static int getCompressionLevel(String name) {
+        if (name.endsWith(REGION_FILE_EXTENSION)) {
+            return Deflater.BEST_SPEED;
+        }
+
+        for (String extension : COMPRESSED_FILE_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return Deflater.NO_COMPRESSION;
+            }
+        }
+
+        return Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Writes the part of the header that is shared between the local file header and the central directory file
+     * header, up to and including the file name length
+     * @param out The stream to write to
+     * @param entry The entry to write the header of
+     * @throws IOException If the header could not be written
+     */
+    private static void writeEntryHeader(OutputStream out, CompressedEntry entry) throws IOException {
+        writeShort(out, ZIP_VERSION);
+        writeShort(out, UTF8_FLAG);
+        writeShort(out, entry.method());
+        writeInt(out, (int) entry.dosTime());
+        writeInt(out, (int) entry.crc());
+        writeInt(out, (int) entry.dataLength());
+        writeInt(out, (int) entry.size());
+        writeShort(out, entry.name().length);
+    }
+
+    /**
+     * Converts the given time to the MS-DOS time and date format that is used in zip files
+     * @param millis The time in milliseconds since the epoch
+     * @return The time in the lower 16 bits and the date in the upper 16 bits
+     */
+    private static long toDosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return ((long) (time.getYear() - 1980) << 25)
+                | ((long) time.getMonthValue() << 21)
+                | ((long) time.getDayOfMonth() << 16)
+                | ((long) time.getHour() << 11)
+                | ((long) time.getMinute() << 5)
+                | (time.getSecond() >> 1);
+    }
+
+    /**
+     * Writes a little-endian 16-bit value
+     * @param out The stream to write to
+     * @param value The value to write
+     * @throws IOException If the value could not be written
+     */
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    /**
+     * Writes a little-endian 32-bit value
+     * @param out The stream to write to
+     * @param value The value to write
+     * @throws IOException If the value could not be written
+     */
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        writeShort(out, value & 0xFFFF);
+        writeShort(out, (value >>> 16) & 0xFFFF);
+    }
+
+    /**
+     * Creates the executor of the threads that compress files
+     * @return The executor
+     */
+    private static ExecutorService createCompressionExecutor() {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                numThreads,
+                numThreads,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>()
+        );
+        threadPoolExecutor.setThreadFactory(runnable -> {
+            Thread thread = new Thread(runnable, "Bingo Zip Compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Byte array output stream that exposes its buffer, so that the compressed data does not need to be copied
+     */
+    private static class DeflatedBuffer extends ByteArrayOutputStream {
+
+        private DeflatedBuffer(int initialSize) {
+            super(initialSize);
+        }
+
+        /**
+         * Get the internal buffer, of which the first size() bytes are valid
+         * @return The internal buffer
+         */
+        private byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * Output stream that keeps track of the position in the file it writes to
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        /**
+         * The current position in the file
+         */
+        private long position;
+
+        private CountingOutputStream(OutputStream out, long position) {
+            super(out);
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+    }
+
+}
@@ -6,9 +6,14 @@ import org.bukkit.WorldBorder;
 import java.util.NoSuchElementException;
 
 /**
- * Class that iterates over ChunkCoordinates belonging to all the chunks within a world border.
+ * Class that iterates over ChunkCoordinates belonging to all the chunks within a world border, in a given order.
  */
 public class ChunkIterator {
+    /**
+     * The number of chunks on each side of a region file.
+     */
+    private static final int REGION_SIZE = 32;
+
     /**
      * The minimum x coordinate of the corner chunks.
      */
@@ -30,6 +35,11 @@ public class ChunkIterator {
      * The total number of chunks that this iterator will iterate over.
      */
     private final long total;
+    /**
+     * The order in which the chunks are iterated.
+     */
+    private final ChunkOrder order;
+
     /**
      * The current x coordinate in the iterator.
      */
@@ -39,16 +49,46 @@ public class ChunkIterator {
      */
     private int z;
     /**
-     * Whether the iterator has a next item.
+     * The x coordinate of the current region, used for region order.
+     */
+    private int regionX;
+    /**
+     * The z coordinate of the current region, used for region order.
+     */
+    private int regionZ;
+    /**
+     * The x coordinate of the center chunk, used for center-out order.
      */
-    private boolean hasNext = true;
+    private final int centerX;
+    /**
+     * The z coordinate of the center chunk, used for center-out order.
+     */
+    private final int centerZ;
+    /**
+     * The distance of the current ring from the center chunk, used for center-out order.
+     */
+    private int ring;
+    /**
+     * The index of the current chunk along the current ring, used for center-out order.
+     */
+    private int ringIndex;
+    /**
+     * The distance of the outermost ring that contains chunks within the bounds, used for center-out order.
+     */
+    private final int maxRing;
+
+    /**
+     * The next chunk coordinate of the iterator, or null if there is none.
+     */
+    private ChunkCoordinate nextChunk;
 
     /**
      * Constructs the iterator that will iterator over all the chunks within the given world border.
      *
      * @param worldBorder The world border with the chunks.
+     * @param order       The order in which the chunks are iterated.
      */
-    public ChunkIterator(final WorldBorder worldBorder) {
+    public ChunkIterator(final WorldBorder worldBorder, final ChunkOrder order) {
         double size = worldBorder.getSize();
 
         Location corner1 = worldBorder.getCenter().clone().add(size / 2.0D, size / 2.0D, size / 2.0D);
@@ -63,9 +103,22 @@ public class ChunkIterator {
         this.z2 = Integer.max(corner1.getBlockZ() / CHUNK_SIZE, corner2.getBlockZ() / CHUNK_SIZE) + BUFFER;
 
         this.total = (long) (x2 - x1 + 1) * (z2 - z1 + 1);
+        this.order = order;
 
         this.x = x1;
         this.z = z1;
+
+        this.regionX = Math.floorDiv(x1, REGION_SIZE);
+        this.regionZ = Math.floorDiv(z1, REGION_SIZE);
+
+        this.centerX = Math.floorDiv(x1 + x2, 2);
+        this.centerZ = Math.floorDiv(z1 + z2, 2);
+        this.maxRing = Math.max(Math.max(centerX - x1, x2 - centerX), Math.max(centerZ - z1, z2 - centerZ));
+
+        this.nextChunk = new ChunkCoordinate(x, z);
+        if (order == ChunkOrder.CENTER_OUT) {
+            this.nextChunk = new ChunkCoordinate(centerX, centerZ);
+        }
     }
 
     /**
@@ -74,7 +127,7 @@ public class ChunkIterator {
      * @return True if there is a next value, false otherwise.
      */
     public boolean hasNext() {
-        return hasNext;
+        return nextChunk != null;
     }
 
     /**
@@ -84,17 +137,142 @@ public class ChunkIterator {
      * @return The next ChunkCoordinate in the iterator.
      */
     public ChunkCoordinate next() {
-        if (!hasNext) {
+        if (nextChunk == null) {
             throw new NoSuchElementException();
         }
-        final ChunkCoordinate chunkCoord = new ChunkCoordinate(x, z);
+        final ChunkCoordinate chunkCoord = nextChunk;
+        nextChunk = switch (order) {
+            case RASTER -> advanceRaster();
+            case REGION -> advanceRegion();
+            case CENTER_OUT -> advanceCenterOut();
+        };
+        return chunkCoord;
+    }
+
+    /**
+     * Advances to the next chunk in raster order.
+     *
+     * @return The next chunk, or null if all chunks have been iterated.
+     */
+    private ChunkCoordinate advanceRaster() {
         if (++z > z2) {
             z = z1;
             if (++x > x2) {
-                hasNext = false;
+                return null;
             }
         }
-        return chunkCoord;
+        return new ChunkCoordinate(x, z);
+    }
+
+    /**
+     * Advances to the next chunk in region order. Within a region, the chunks are iterated in raster order.
+     *
+     * @return The next chunk, or null if all chunks have been iterated.
+     */
+    private ChunkCoordinate advanceRegion() {
+        int regionMinX = Math.max(x1, regionX * REGION_SIZE);
+        int regionMinZ = Math.max(z1, regionZ * REGION_SIZE);
+        int regionMaxX = Math.min(x2, regionX * REGION_SIZE + REGION_SIZE - 1);
+        int regionMaxZ = Math.min(z2, regionZ * REGION_SIZE + REGION_SIZE - 1);
+
+        if (++z <= regionMaxZ) {
+            return new ChunkCoordinate(x, z);
+        }
+        z = regionMinZ;
+        if (++x <= regionMaxX) {
+            return new ChunkCoordinate(x, z);
+        }
+
+        // Move on to the next region
+        if (++regionZ > Math.floorDiv(z2, REGION_SIZE)) {
+            regionZ = Math.floorDiv(z1, REGION_SIZE);
+            if (++regionX > Math.floorDiv(x2, REGION_SIZE)) {
+                return null;
+            }
+        }
+        x = Math.max(x1, regionX * REGION_SIZE);
+        z = Math.max(z1, regionZ * REGION_SIZE);
+        return new ChunkCoordinate(x, z);
+    }
+
+    /**
+     * Advances to the next chunk in center-out order. Each ring is walked clockwise starting from its top left
+     * corner, skipping the chunks outside the bounds.
+     *
+     * @return The next chunk, or null if all chunks have been iterated.
+     */
+    private ChunkCoordinate advanceCenterOut() {
+        while (true) {
+            if (ring == 0 || ++ringIndex >= 8 * ring) {
+                if (++ring > maxRing) {
+                    return null;
+                }
+                ringIndex = 0;
+            }
+
+            int sideLength = 2 * ring;
+            int offset = ringIndex % sideLength;
+            int chunkX;
+            int chunkZ;
+            switch (ringIndex / sideLength) {
+                case 0 -> {
+                    chunkX = centerX - ring + offset;
+                    chunkZ = centerZ - ring;
+                }
+                case 1 -> {
+                    chunkX = centerX + ring;
+                    chunkZ = centerZ - ring + offset;
+                }
+                case 2 -> {
+                    chunkX = centerX + ring - offset;
+                    chunkZ = centerZ + ring;
+                }
+                default -> {
+                    chunkX = centerX - ring;
+                    chunkZ = centerZ + ring - offset;
+                }
+            }
+
+            if (chunkX >= x1 && chunkX <= x2 && chunkZ >= z1 && chunkZ <= z2) {
+                return new ChunkCoordinate(chunkX, chunkZ);
+            }
+        }
+    }
+
+    /**
+     * The minimum x coordinate of the chunks that this iterator will iterate over.
+     *
+     * @return The minimum chunk x coordinate.
+     */
+    public int getMinX() {
+        return x1;
+    }
+
+    /**
+     * The maximum x coordinate of the chunks that this iterator will iterate over.
+     *
+     * @return The maximum chunk x coordinate.
+     */
+    public int getMaxX() {
+        return x2;
+    }
+
+    /**
+     * The minimum z coordinate of the chunks that this iterator will iterate over.
+     *
+     * @return The minimum chunk z coordinate.
+     */
+    public int getMinZ() {
+        return z1;
+    }
+
+    /**
+     * The maximum z coordinate of the chunks that this iterator will iterate over.
+     *
+     * @return The maximum chunk z coordinate.
+     */
+    public int getMaxZ() {
+        return z2;
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.extremelyd1.world.generation;
+
+/**
+ * The order in which the chunks within a world border are generated.
+ */
+public enum ChunkOrder {
+    /**
+     * Column by column over the whole area.
+     */
+    RASTER,
+    /**
+     * Region file (32 by 32 chunks) by region file, so that consecutive chunks are stored in the same region file.
+     */
+    REGION,
+    /**
+     * In square rings outward from the center of the border, so that a partial generation always covers the center.
+     */
+    CENTER_OUT;
+
+    /**
+     * Get the chunk order with the given name, ignoring case and allowing dashes instead of underscores.
+     *
+     * @param name The name of the chunk order.
+     * @return The chunk order with the given name.
+     * @throws IllegalArgumentException If there is no chunk order with the given name.
+     */
+    public static ChunkOrder fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown chunk order: " + name);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.extremelyd1.world.generation;
+
+import com.extremelyd1.world.platform.Environment;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls the number of chunks that a generation task has in flight at the same time.
+ * The limit is adjusted with additive increase and multiplicative decrease (AIMD): it grows steadily while chunks
+ * complete quickly and the server keeps up, and it is cut whenever the chunk latency rises well above the best
+ * observed latency, the server tick time exceeds its budget or the heap is nearly full.
+ */
+public class ConcurrencyController {
+    /**
+     * The minimum number of chunks in flight.
+     */
+    private static final int MIN_PERMITS = 4;
+    /**
+     * The maximum number of chunks in flight per available processor.
+     */
+    private static final int MAX_PERMITS_PER_PROCESSOR = 16;
+    /**
+     * The initial number of chunks in flight per available processor.
+     */
+    private static final int INITIAL_PERMITS_PER_PROCESSOR = 4;
+    /**
+     * The number of permits that are added each interval in which no congestion was observed.
+     */
+    private static final int ADDITIVE_INCREASE = 4;
+    /**
+     * The factor with which the number of permits is multiplied when congestion was observed.
+     */
+    private static final double MULTIPLICATIVE_DECREASE = 0.7;
+    /**
+     * The interval in nanoseconds between adjustments of the limit.
+     */
+    private static final long ADJUST_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The minimum number of completed chunks in an interval for its average latency to be considered.
+     */
+    private static final int MIN_SAMPLES = 8;
+    /**
+     * The factor of the baseline latency above which the chunk latency is considered congested.
+     */
+    private static final double MAX_LATENCY_RATIO = 2.0;
+    /**
+     * The rate at which the baseline latency follows a higher average latency, so that a single fast interval does
+     * not keep the baseline low forever.
+     */
+    private static final double BASELINE_RECOVERY = 0.05;
+    /**
+     * The average tick time in milliseconds above which the server is considered overloaded.
+     */
+    private static final double MAX_TICK_TIME = 45.0;
+    /**
+     * The fraction of the maximum heap size above which the heap is considered under pressure.
+     */
+    private static final double MAX_HEAP_USAGE = 0.85;
+
+    /**
+     * The semaphore that hands out the permits, which can be shrunk when the limit decreases.
+     */
+    private final ResizableSemaphore permits;
+    /**
+     * The maximum number of permits for this machine.
+     */
+    private final int maxPermits;
+
+    /**
+     * The current number of permits.
+     */
+    private volatile int limit;
+    /**
+     * The lowest average chunk latency observed in an interval, in nanoseconds, or 0 if none was observed yet.
+     */
+    private double baselineLatency;
+    /**
+     * The start time of the current interval in nanoseconds.
+     */
+    private long intervalStart;
+    /**
+     * The sum of the latencies of the chunks completed in the current interval, in nanoseconds.
+     */
+    private long intervalLatency;
+    /**
+     * The number of chunks completed in the current interval.
+     */
+    private int intervalSamples;
+    /**
+     * Whether the limit is no longer adjusted, because the task is waiting for the last chunks.
+     */
+    private boolean frozen;
+
+    /**
+     * Constructs the controller with limits based on the number of available processors.
+     */
+    public ConcurrencyController() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.maxPermits = Math.max(MIN_PERMITS, processors * MAX_PERMITS_PER_PROCESSOR);
+        this.limit = Math.max(MIN_PERMITS, Math.min(maxPermits, processors * INITIAL_PERMITS_PER_PROCESSOR));
+        this.permits = new ResizableSemaphore(limit);
+        this.intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Acquires a permit to request a chunk, blocking until one is available.
+     *
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    /**
+     * Releases the permit of a completed chunk request and adjusts the limit if the interval has elapsed.
+     *
+     * @param latency The time in nanoseconds between requesting the chunk and its completion.
+     */
+    public void release(long latency) {
+        synchronized (this) {
+            intervalLatency += latency;
+            intervalSamples++;
+
+            long currentTime = System.nanoTime();
+            if (!frozen && currentTime - intervalStart >= ADJUST_INTERVAL) {
+                adjust();
+                intervalStart = currentTime;
+                intervalLatency = 0;
+                intervalSamples = 0;
+            }
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Adjusts the limit based on the latency of the current interval, the server tick time and the heap usage.
+     */
+    private void adjust() {
+        boolean congested = false;
+
+        if (intervalSamples >= MIN_SAMPLES) {
+            double averageLatency = (double) intervalLatency / intervalSamples;
+            if (baselineLatency == 0 || averageLatency < baselineLatency) {
+                baselineLatency = averageLatency;
+            } else {
+                congested = averageLatency > baselineLatency * MAX_LATENCY_RATIO;
+                baselineLatency += (averageLatency - baselineLatency) * BASELINE_RECOVERY;
+            }
+        }
+
+        // The tick time is NaN if the server does not provide it, in which case the comparison is false
+        if (Environment.getAverageTickTime() > MAX_TICK_TIME) {
+            congested = true;
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        if ((double) usedMemory / runtime.maxMemory() > MAX_HEAP_USAGE) {
+            congested = true;
+        }
+
+        int newLimit;
+        if (congested) {
+            newLimit = Math.max(MIN_PERMITS, (int) (limit * MULTIPLICATIVE_DECREASE));
+        } else {
+            newLimit = Math.min(maxPermits, limit + ADDITIVE_INCREASE);
+        }
+
+        if (newLimit > limit) {
+            permits.release(newLimit - limit);
+        } else if (newLimit < limit) {
+            permits.reducePermits(limit - newLimit);
+        }
+        limit = newLimit;
+    }
+
+    /**
+     * Stops adjusting the limit and waits until all chunks in flight have completed.
+     *
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public void awaitIdle() throws InterruptedException {
+        int finalLimit;
+        synchronized (this) {
+            frozen = true;
+            finalLimit = limit;
+        }
+
+        permits.acquire(finalLimit);
+    }
+
+    /**
+     * Get the current number of chunks that may be in flight at the same time.
+     *
+     * @return The current limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Semaphore of which the number of permits can be reduced without waiting for them to be released.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        /**
+         * Constructs the semaphore with the given number of permits.
+         *
+         * @param permits The initial number of permits.
+         */
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
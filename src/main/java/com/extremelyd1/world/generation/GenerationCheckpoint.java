@@ -0,0 +1,314 @@
+package com.extremelyd1.world.generation;
+
+import com.extremelyd1.game.Game;
+import org.bukkit.World;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that keeps track of which chunks of a world have finished generating, and stores this on disk so that
+ * an interrupted generation can be resumed with the same seed.
+ * A checkpoint only claims chunks that were completed before a save of the world had been issued at least one flush
+ * earlier, since the chunk data is written to disk asynchronously after the world is saved.
+ */
+public class GenerationCheckpoint {
+    /**
+     * The magic number at the start of a checkpoint file.
+     */
+    private static final int MAGIC = 0x42474350;
+    /**
+     * The version of the checkpoint file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The file in which this checkpoint is stored.
+     */
+    private final File file;
+    /**
+     * The seed of the world.
+     */
+    private final long seed;
+    /**
+     * The minimum x coordinate of the chunks.
+     */
+    private final int minX;
+    /**
+     * The minimum z coordinate of the chunks.
+     */
+    private final int minZ;
+    /**
+     * The maximum x coordinate of the chunks.
+     */
+    private final int maxX;
+    /**
+     * The maximum z coordinate of the chunks.
+     */
+    private final int maxZ;
+    /**
+     * The bitset of completed chunks, indexed by (x - minX) * depth + (z - minZ).
+     */
+    private final AtomicLongArray completed;
+    /**
+     * The number of chunks that were already completed when this checkpoint was loaded.
+     */
+    private final long numResumed;
+
+    /**
+     * The bitset of completed chunks at the previous flush, which is written at the next flush.
+     */
+    private long[] savedSnapshot;
+    /**
+     * Whether this checkpoint is closed and should no longer be written.
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a checkpoint with the given bitset.
+     *
+     * @param file      The file in which the checkpoint is stored.
+     * @param seed      The seed of the world.
+     * @param iterator  The iterator of which the bounds are used.
+     * @param completed The bitset of completed chunks.
+     */
+    private GenerationCheckpoint(File file, long seed, ChunkIterator iterator, long[] completed) {
+        this.file = file;
+        this.seed = seed;
+        this.minX = iterator.getMinX();
+        this.minZ = iterator.getMinZ();
+        this.maxX = iterator.getMaxX();
+        this.maxZ = iterator.getMaxZ();
+        this.completed = new AtomicLongArray(completed);
+
+        long count = 0;
+        for (long word : completed) {
+            count += Long.bitCount(word);
+        }
+        this.numResumed = count;
+    }
+
+    /**
+     * Reads the seed of the world that was being generated from the given checkpoint file.
+     *
+     * @param file The checkpoint file.
+     * @return The seed of the world, or empty if there is no valid checkpoint file.
+     */
+    public static OptionalLong readSeed(File file) {
+        if (!file.exists()) {
+            return OptionalLong.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return OptionalLong.empty();
+            }
+
+            return OptionalLong.of(in.readLong());
+        } catch (IOException e) {
+            Game.getLogger().warning(String.format(
+                    "Could not read generation checkpoint %s: %s",
+                    file.getName(),
+                    e.getMessage()
+            ));
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Loads the checkpoint from the given file if it belongs to a world with the given seed and bounds, or creates an
+     * empty checkpoint otherwise.
+     *
+     * @param file     The checkpoint file.
+     * @param seed     The seed of the world.
+     * @param iterator The iterator over the chunks of the world.
+     * @return The loaded or created checkpoint.
+     */
+    public static GenerationCheckpoint loadOrCreate(File file, long seed, ChunkIterator iterator) {
+        int numWords = (int) ((iterator.total() + 63) >>> 6);
+
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC
+                        && in.readInt() == VERSION
+                        && in.readLong() == seed
+                        && in.readInt() == iterator.getMinX()
+                        && in.readInt() == iterator.getMinZ()
+                        && in.readInt() == iterator.getMaxX()
+                        && in.readInt() == iterator.getMaxZ()
+                        && in.readInt() == numWords
+                ) {
+                    long[] completed = new long[numWords];
+                    for (int i = 0; i < numWords; i++) {
+                        completed[i] = in.readLong();
+                    }
+
+                    return new GenerationCheckpoint(file, seed, iterator, completed);
+                }
+
+                Game.getLogger().warning(String.format(
+                        "Generation checkpoint %s does not match the world, starting over",
+                        file.getName()
+                ));
+            } catch (IOException e) {
+                Game.getLogger().warning(String.format(
+                        "Could not read generation checkpoint %s, starting over: %s",
+                        file.getName(),
+                        e.getMessage()
+                ));
+            }
+        }
+
+        return new GenerationCheckpoint(file, seed, iterator, new long[numWords]);
+    }
+
+    /**
+     * Get the index of the bit of the given chunk.
+     *
+     * @param chunk The chunk coordinate.
+     * @return The index of the bit.
+     */
+    private int getIndex(ChunkCoordinate chunk) {
+        return (chunk.x() - minX) * (maxZ - minZ + 1) + (chunk.z() - minZ);
+    }
+
+    /**
+     * Whether the given chunk was completed.
+     *
+     * @param chunk The chunk coordinate.
+     * @return True if the chunk was completed, false otherwise.
+     */
+    public boolean isCompleted(ChunkCoordinate chunk) {
+        int index = getIndex(chunk);
+        return (completed.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks the given chunk as completed.
+     *
+     * @param chunk The chunk coordinate.
+     */
+    public void markCompleted(ChunkCoordinate chunk) {
+        int index = getIndex(chunk);
+        completed.accumulateAndGet(index >>> 6, 1L << index, (word, bit) -> word | bit);
+    }
+
+    /**
+     * Get the number of chunks that were already completed when this checkpoint was loaded.
+     *
+     * @return The number of resumed chunks.
+     */
+    public long getNumResumed() {
+        return numResumed;
+    }
+
+    /**
+     * Saves the given world and writes the chunks that were completed at the previous flush to disk.
+     * Should be called on the main thread.
+     *
+     * @param world The world that is being generated.
+     */
+    public synchronized void flush(World world) {
+        if (closed) {
+            return;
+        }
+
+        long[] snapshot = snapshot();
+        world.save();
+
+        if (savedSnapshot != null) {
+            write(savedSnapshot);
+        }
+        savedSnapshot = snapshot;
+    }
+
+    /**
+     * Writes all completed chunks to disk and closes this checkpoint. Should only be called after the world has been
+     * unloaded with saving.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        write(snapshot());
+    }
+
+    /**
+     * Closes this checkpoint and deletes its file, since the world no longer needs to be resumed.
+     */
+    public synchronized void delete() {
+        closed = true;
+
+        if (file.exists() && !file.delete()) {
+            Game.getLogger().warning(String.format(
+                    "Could not delete generation checkpoint %s",
+                    file.getName()
+            ));
+        }
+    }
+
+    /**
+     * Takes a copy of the current bitset of completed chunks.
+     *
+     * @return The copied bitset.
+     */
+    private long[] snapshot() {
+        long[] snapshot = new long[completed.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = completed.get(i);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Writes the given bitset to the checkpoint file. The file is replaced atomically, so that a crash while writing
+     * leaves the previous checkpoint intact.
+     *
+     * @param bitset The bitset of completed chunks.
+     */
+    private void write(long[] bitset) {
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(minX);
+            out.writeInt(minZ);
+            out.writeInt(maxX);
+            out.writeInt(maxZ);
+            out.writeInt(bitset.length);
+            for (long word : bitset) {
+                out.writeLong(word);
+            }
+        } catch (IOException e) {
+            Game.getLogger().warning(String.format(
+                    "Could not write generation checkpoint %s: %s",
+                    file.getName(),
+                    e.getMessage()
+            ));
+            return;
+        }
+
+        try {
+            Files.move(
+                    tempFile.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (IOException e) {
+            Game.getLogger().warning(String.format(
+                    "Could not replace generation checkpoint %s: %s",
+                    file.getName(),
+                    e.getMessage()
+            ));
+        }
+    }
+}
@@ -3,13 +3,15 @@ package com.extremelyd1.world.generation;
 import com.extremelyd1.game.Game;
 import com.extremelyd1.util.Pair;
 import com.extremelyd1.world.platform.Environment;
+import org.bukkit.Bukkit;
 import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
 
+import java.io.File;
 import java.util.Deque;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -17,9 +19,9 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class GenerationTask implements Runnable {
     /**
-     * The maximum number of permits for the semaphore that controls chunk generation.
+     * The interval in milliseconds between flushes of the checkpoint to disk.
      */
-    private static final int MAX_PERMITS = 50;
+    private static final long CHECKPOINT_INTERVAL = 30000;
 
     /**
      * The start time of the generation.
@@ -39,6 +41,10 @@ public class GenerationTask implements Runnable {
      */
     private final Deque<Pair<Long, AtomicLong>> updateSamples = new ConcurrentLinkedDeque<>();
 
+    /**
+     * The plugin instance to schedule tasks on the main thread with.
+     */
+    private final Plugin plugin;
     /**
      * The world to generate chunks for.
      */
@@ -55,10 +61,22 @@ public class GenerationTask implements Runnable {
      * The progress instance that keeps track of the progress of chunk generation.
      */
     private final Progress progress;
+    /**
+     * The controller that limits the number of chunks in flight.
+     */
+    private final ConcurrencyController concurrency;
+    /**
+     * The checkpoint that keeps track of the completed chunks, so that the generation can be resumed.
+     */
+    private final GenerationCheckpoint checkpoint;
+    /**
+     * The time at which the checkpoint was last flushed.
+     */
+    private long checkpointTime;
     /**
      * Whether this generation task has stopped.
      */
-    private boolean stopped;
+    private volatile boolean stopped;
     /**
      * Whether this generation task has completed.
      */
@@ -67,14 +85,35 @@ public class GenerationTask implements Runnable {
     /**
      * Constructs the generation task with the given world and the runnable.
      *
+     * @param plugin          The plugin instance.
      * @param world           The world to generate chunks in.
-     * @param completedAction The runnable to run when this task completes.
+     * @param chunkOrder      The order in which to generate the chunks.
+     * @param checkpointFile  The file in which the completed chunks are stored, which is resumed from if it exists.
+     * @param completedAction The runnable to run when this task completes, which is not run if the task is stopped.
      */
-    public GenerationTask(World world, Runnable completedAction) {
+    public GenerationTask(
+            Plugin plugin,
+            World world,
+            ChunkOrder chunkOrder,
+            File checkpointFile,
+            Runnable completedAction
+    ) {
+        this.plugin = plugin;
         this.world = world;
         this.completedAction = completedAction;
-        this.chunkIterator = new ChunkIterator(world.getWorldBorder());
+        this.chunkIterator = new ChunkIterator(world.getWorldBorder(), chunkOrder);
         this.progress = new Progress(world.getName(), chunkIterator.total());
+        this.concurrency = new ConcurrencyController();
+        this.checkpoint = GenerationCheckpoint.loadOrCreate(checkpointFile, world.getSeed(), chunkIterator);
+
+        if (checkpoint.getNumResumed() > 0) {
+            Game.getLogger().info(String.format(
+                    "Resuming generation of %s from checkpoint, %s chunks already generated",
+                    world.getName(),
+                    checkpoint.getNumResumed()
+            ));
+            finishedChunks.set(checkpoint.getNumResumed());
+        }
     }
 
     /**
@@ -87,6 +126,7 @@ public class GenerationTask implements Runnable {
 
         progress.chunkCount = finishedChunks.addAndGet(1);
         progress.percentComplete = 100f * progress.chunkCount / chunkIterator.total();
+        progress.concurrency = concurrency.getLimit();
 
         final long currentTime = System.currentTimeMillis();
         final Pair<Long, AtomicLong> bin = updateSamples.peekLast();
@@ -137,18 +177,28 @@ public class GenerationTask implements Runnable {
     public void run() {
         final String poolThreadName = Thread.currentThread().getName();
         Thread.currentThread().setName(String.format("BingoGen-%s Thread", world.getName()));
-        final Semaphore working = new Semaphore(MAX_PERMITS);
         startTime.set(System.currentTimeMillis());
+        checkpointTime = startTime.get();
         while (!stopped && chunkIterator.hasNext()) {
             final ChunkCoordinate chunk = chunkIterator.next();
+            if (checkpoint.isCompleted(chunk)) {
+                continue;
+            }
+
+            final long currentTime = System.currentTimeMillis();
+            if (currentTime - checkpointTime >= CHECKPOINT_INTERVAL) {
+                checkpointTime = currentTime;
+                Bukkit.getScheduler().runTask(plugin, () -> checkpoint.flush(world));
+            }
 
             try {
-                working.acquire();
+                concurrency.acquire();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                stop(completed);
+                stop();
                 break;
             }
+            final long requestTime = System.nanoTime();
             final CompletableFuture<Boolean> isChunkGenerated = CompletableFuture.supplyAsync(() -> {
                 try {
                     return world.isChunkGenerated(chunk.x(), chunk.z());
@@ -164,34 +214,56 @@ public class GenerationTask implements Runnable {
                             return Environment.getChunkAtAsync(world, chunk.x(), chunk.z(), true);
                         }
                     }).whenComplete((ignored, throwable) -> {
+                        if (throwable == null) {
+                            checkpoint.markCompleted(chunk);
+                        }
                         update();
-                        working.release();
+                        concurrency.release(System.nanoTime() - requestTime);
                     });
         }
-        if (stopped) {
-            Game.getLogger().info(String.format("Task stopped for %s.", world.getName()));
-        } else {
-            completed = true;
+        synchronized (this) {
+            if (stopped) {
+                Game.getLogger().info(String.format("Task stopped for %s.", world.getName()));
+            } else {
+                completed = true;
+            }
         }
         Thread.currentThread().setName(poolThreadName);
 
         try {
-            working.acquire(MAX_PERMITS);
+            concurrency.awaitIdle();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
-            completedAction.run();
+            // A stopped world is kept or deleted by whoever stopped it, together with its checkpoint
+            if (completed) {
+                checkpoint.delete();
+                completedAction.run();
+            }
         }
     }
 
+    public World getWorld() {
+        return world;
+    }
+
+    public GenerationCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
     /**
-     * Stops this generation task.
+     * Stops this generation task, unless all of its chunks have already been requested.
      *
-     * @param completed Whether the task was completed.
+     * @return True if the task was stopped, in which case its completed action will not run, false if the task
+     * already completed.
      */
-    public void stop(final boolean completed) {
+    public synchronized boolean stop() {
+        if (completed) {
+            return false;
+        }
+
         this.stopped = true;
-        this.completed = completed;
+        return true;
     }
 
     /**
@@ -236,6 +308,10 @@ public class GenerationTask implements Runnable {
          * The current rate in chunks of generation.
          */
         private double rate;
+        /**
+         * The current number of chunks that may be in flight at the same time.
+         */
+        private int concurrency;
 
         /**
          * Constructs the progress instance with the given world and total number of chunks.
@@ -268,12 +344,13 @@ public class GenerationTask implements Runnable {
                 ));
             } else {
                 Game.getLogger().info(String.format(
-                        "Generation progress for %s: %s/%s [%.2f%%, %.2f chunks/s], ETA: %01d:%02d:%02d",
+                        "Generation progress for %s: %s/%s [%.2f%%, %.2f chunks/s, %d concurrent], ETA: %01d:%02d:%02d",
                         world,
                         chunkCount,
                         totalChunks,
                         percentComplete,
                         rate,
+                        concurrency,
                         hours,
                         minutes,
                         seconds
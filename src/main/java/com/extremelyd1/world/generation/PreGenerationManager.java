@@ -1,23 +1,40 @@
 package com.extremelyd1.world.generation;
 
 import com.extremelyd1.game.Game;
-import com.extremelyd1.util.FileUtil;
+import com.extremelyd1.util.ZipPackager;
 import org.apache.commons.io.FileUtils;
 import org.bukkit.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Queue;
-import java.util.Random;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Manager class for pre-generation of worlds.
+ * Worlds go through a pipeline of stages: they are created and later saved and unloaded on the main thread,
+ * generated on the task scheduler with a limited number of worlds in memory at the same time, and packaged and
+ * cleaned up on a separate pool of packaging threads. This way, a world can be generating while another is being
+ * packaged, and the overworld and nether of an index (or worlds of different indices) can overlap.
  */
 public class PreGenerationManager {
+    /**
+     * The maximum number of worlds that are generating at the same time.
+     */
+    private static final int MAX_CONCURRENT_GENERATIONS = 4;
+    /**
+     * The number of available processors per world that is generating at the same time.
+     */
+    private static final int PROCESSORS_PER_GENERATION = 4;
+    /**
+     * The amount of maximum heap memory in bytes per world that is generating at the same time.
+     */
+    private static final long MEMORY_PER_GENERATION = 2L * 1024 * 1024 * 1024;
+    /**
+     * The number of threads that package generated worlds.
+     */
+    private static final int PACKAGING_THREADS = 2;
+
     /**
      * The game instance.
      */
@@ -27,6 +44,10 @@ public class PreGenerationManager {
      * The task scheduler instance to schedule generation tasks.
      */
     private final TaskScheduler taskScheduler;
+    /**
+     * The executor that packages and cleans up generated worlds.
+     */
+    private final ExecutorService packagingExecutor;
 
     /**
      * Queue containing record instances for pending generations.
@@ -34,9 +55,15 @@ public class PreGenerationManager {
     private final Queue<PendingGeneration> pendingGenerations;
 
     /**
-     * Semaphore for thread safety in generation.
+     * Semaphore that limits the number of worlds that are loaded for generation at the same time.
+     * A slot is taken before a world is created and released once it has been unloaded.
+     */
+    private final Semaphore generationSlots;
+    /**
+     * The locks of the zip files that are packaged into, keyed by world index, since the overworld and nether
+     * of an index are packaged into the same zip file.
      */
-    private final Semaphore generationSemaphore;
+    private final Map<Integer, Object> zipLocks;
 
     /**
      * Random instance for assigning world seeds.
@@ -48,6 +75,11 @@ public class PreGenerationManager {
      */
     private boolean isRunning;
 
+    /**
+     * The generation tasks that are currently generating chunks.
+     */
+    private final Set<GenerationTask> activeGenerationTasks;
+
     /**
      * Construct the pre-generation manager with the game instance.
      *
@@ -56,10 +88,32 @@ public class PreGenerationManager {
     public PreGenerationManager(Game game) {
         this.game = game;
         this.taskScheduler = new TaskScheduler();
+        this.packagingExecutor = Executors.newFixedThreadPool(PACKAGING_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "Bingo World Packager");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         this.pendingGenerations = new ConcurrentLinkedQueue<>();
-        this.generationSemaphore = new Semaphore(1);
+        this.generationSlots = new Semaphore(getMaxConcurrentGenerations());
+        this.zipLocks = new ConcurrentHashMap<>();
         this.random = new Random();
+        this.activeGenerationTasks = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Get the number of worlds that can generate at the same time, bounded by the number of available processors
+     * and the maximum heap size that is left after the memory that the packaging threads buffer.
+     *
+     * @return The number of concurrent generations.
+     */
+    private static int getMaxConcurrentGenerations() {
+        Runtime runtime = Runtime.getRuntime();
+        int byProcessors = runtime.availableProcessors() / PROCESSORS_PER_GENERATION;
+        long packagingMemory = PACKAGING_THREADS * ZipPackager.MAX_BUFFERED_BYTES;
+        long byMemory = (runtime.maxMemory() - packagingMemory) / MEMORY_PER_GENERATION;
+
+        return (int) Math.max(1, Math.min(MAX_CONCURRENT_GENERATIONS, Math.min(byProcessors, byMemory)));
     }
 
     /**
@@ -107,6 +161,19 @@ public class PreGenerationManager {
         Game.getLogger().info("Cancelling tasks...");
 
         this.isRunning = false;
+
+        // Stop the generation tasks before cancelling them, so that they do not finish their worlds while those are
+        // being unloaded here. The slots of stopped tasks are released here, since they will not process their world.
+        List<GenerationTask> stoppedTasks = new ArrayList<>();
+        for (GenerationTask generationTask : new ArrayList<>(activeGenerationTasks)) {
+            activeGenerationTasks.remove(generationTask);
+
+            if (generationTask.stop()) {
+                stoppedTasks.add(generationTask);
+                generationSlots.release();
+            }
+        }
+
         this.taskScheduler.cancelTasks();
 
         Game.getLogger().info("Unloading all active worlds...");
@@ -119,6 +186,26 @@ public class PreGenerationManager {
                 continue;
             }
 
+            // Keep the worlds that were generating chunks and their checkpoints, so that the generation can be resumed
+            GenerationTask generationTask = getGenerationTask(stoppedTasks, world);
+            if (generationTask != null) {
+                if (Bukkit.unloadWorld(world, true)) {
+                    generationTask.getCheckpoint().close();
+
+                    Game.getLogger().info(String.format(
+                            "Saved generation progress of %s, generating it again will resume from here",
+                            world.getName()
+                    ));
+                } else {
+                    Game.getLogger().warning(String.format(
+                            "Could not unload world %s, its generation progress might not be saved",
+                            world.getName()
+                    ));
+                }
+
+                continue;
+            }
+
             // Unload the world without saving, since we are not zipping it anymore and we are deleting it afterwards
             Bukkit.unloadWorld(world, false);
 
@@ -131,6 +218,9 @@ public class PreGenerationManager {
                 ));
                 e.printStackTrace();
             }
+
+            // A checkpoint without its world folder would claim chunks that no longer exist
+            deleteCheckpoint(world.getName());
         }
 
         Game.getLogger().info("Pre-generation stopped successfully!");
@@ -144,7 +234,7 @@ public class PreGenerationManager {
 
         while (isRunning) {
             try {
-                generationSemaphore.acquire();
+                generationSlots.acquire();
             } catch (InterruptedException e) {
                 isRunning = false;
                 break;
@@ -152,6 +242,7 @@ public class PreGenerationManager {
 
             if (pendingGenerations.isEmpty()) {
                 Game.getLogger().info("No more pending generations left, stopping pre-generation");
+                generationSlots.release();
                 isRunning = false;
                 return;
             }
@@ -178,11 +269,19 @@ public class PreGenerationManager {
                 ).copy(this.game.getWorldManager().getEnd());
 
                 default -> {
+                    generationSlots.release();
                     continue;
                 }
             }
 
-            worldCreator.seed(random.nextLong());
+            // Resume with the same seed if this world was partially generated before, which is only the case if
+            // its folder still exists
+            File checkpointFile = getCheckpointFile(worldCreator.name());
+            if (!new File(Bukkit.getWorldContainer(), worldCreator.name()).exists()) {
+                deleteCheckpoint(worldCreator.name());
+            }
+            OptionalLong resumedSeed = GenerationCheckpoint.readSeed(checkpointFile);
+            worldCreator.seed(resumedSeed.orElseGet(random::nextLong));
 
             Game.getLogger().info("Starting world creation on main thread...");
 
@@ -225,12 +324,12 @@ public class PreGenerationManager {
                         pendingGeneration
                 ));
 
-                generationSemaphore.release();
+                generationSlots.release();
                 continue;
             }
 
             if (world == null) {
-                generationSemaphore.release();
+                generationSlots.release();
                 continue;
             }
 
@@ -239,16 +338,41 @@ public class PreGenerationManager {
                 continue;
             }
 
-            GenerationTask currentGenerationTask = new GenerationTask(
+            GenerationTask generationTask = new GenerationTask(
+                    game.getPlugin(),
                     world,
-                    () -> processGeneratedWorld(pendingGeneration, world)
+                    game.getConfig().getPreGenerationChunkOrder(),
+                    checkpointFile,
+                    () -> {
+                        activeGenerationTasks.removeIf(task -> task.getWorld().equals(world));
+                        processGeneratedWorld(pendingGeneration, world);
+                    }
             );
-            taskScheduler.runTask(currentGenerationTask);
+            activeGenerationTasks.add(generationTask);
+            taskScheduler.runTask(generationTask);
         }
     }
 
     /**
-     * Processes a given pending generation and its corresponding world for zipping, unloading and deletion.
+     * Get the generation task from the given tasks that is generating the given world.
+     *
+     * @param generationTasks The generation tasks to search.
+     * @param world           The world.
+     * @return The generation task, or null if none of the tasks is generating the world.
+     */
+    private static GenerationTask getGenerationTask(Collection<GenerationTask> generationTasks, World world) {
+        for (GenerationTask generationTask : generationTasks) {
+            if (generationTask.getWorld().equals(world)) {
+                return generationTask;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Processes a given pending generation and its corresponding world for unloading, after which it is handed
+     * to the packaging threads for zipping and deletion.
      *
      * @param pendingGeneration The pending generation to process.
      * @param world             The world instance for the pending generation.
@@ -271,20 +395,31 @@ public class PreGenerationManager {
                     pendingGeneration
             ));
 
-            generationSemaphore.release();
+            generationSlots.release();
             return;
         }
 
+        // The world is no longer in memory, so the next world can be created while this one is packaged
+        generationSlots.release();
+
         if (!unloadSuccess) {
             Game.getLogger().warning(String.format(
                     "Could not unload world (%s), cannot zip world",
                     pendingGeneration
             ));
-
-            generationSemaphore.release();
             return;
         }
 
+        packagingExecutor.execute(() -> packageWorld(pendingGeneration, world));
+    }
+
+    /**
+     * Packages the given unloaded world into the zip file of its index and deletes its folder afterwards.
+     *
+     * @param pendingGeneration The pending generation to package.
+     * @param world             The unloaded world instance for the pending generation.
+     */
+    private void packageWorld(PendingGeneration pendingGeneration, World world) {
         String dirName = "world";
         switch (world.getEnvironment()) {
             case NETHER -> dirName += "_nether";
@@ -297,11 +432,30 @@ public class PreGenerationManager {
                 pendingGeneration.index()
         ));
 
-        FileUtil.packZip(
-                worldZip,
-                world.getWorldFolder(),
-                dirName
-        );
+        Game.getLogger().info(String.format(
+                "Packaging world (%s) into %s",
+                pendingGeneration,
+                worldZip.getName()
+        ));
+
+        // The overworld and nether of an index are packaged into the same zip, so they cannot be packaged at once
+        ZipPackager.Result result;
+        synchronized (zipLocks.computeIfAbsent(pendingGeneration.index(), index -> new Object())) {
+            try {
+                result = ZipPackager.pack(
+                        worldZip,
+                        world.getWorldFolder(),
+                        dirName
+                );
+            } catch (IOException e) {
+                Game.getLogger().warning(String.format(
+                        "Could not package world (%s), keeping its folder: %s",
+                        pendingGeneration,
+                        e.getMessage()
+                ));
+                return;
+            }
+        }
 
         try {
             FileUtils.deleteDirectory(world.getWorldFolder());
@@ -312,8 +466,44 @@ public class PreGenerationManager {
             ));
             e.printStackTrace();
         }
+        deleteCheckpoint(world.getName());
+
+        Game.getLogger().info(String.format(
+                "World (%s) packaged into %s: %s files, %.1f MiB to %.1f MiB (%.1f%%) in %.2fs, %.1f MiB/s",
+                pendingGeneration,
+                worldZip.getName(),
+                result.numFiles(),
+                result.uncompressedSize() / (1024.0 * 1024.0),
+                result.compressedSize() / (1024.0 * 1024.0),
+                result.getRatio(),
+                result.duration() / 1e9,
+                result.getThroughput()
+        ));
+    }
+
+    /**
+     * Gets the file in which the generation checkpoint of the world with the given name is stored.
+     *
+     * @param worldName The name of the world.
+     * @return A file instance for the checkpoint.
+     */
+    private File getCheckpointFile(String worldName) {
+        return new File(getWorldsFolder(), worldName + ".checkpoint");
+    }
 
-        generationSemaphore.release();
+    /**
+     * Deletes the generation checkpoint of the world with the given name, if it exists.
+     *
+     * @param worldName The name of the world.
+     */
+    private void deleteCheckpoint(String worldName) {
+        File checkpointFile = getCheckpointFile(worldName);
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            Game.getLogger().warning(String.format(
+                    "Could not delete generation checkpoint %s",
+                    checkpointFile.getName()
+            ));
+        }
     }
 
     /**
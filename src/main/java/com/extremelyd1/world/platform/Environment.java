@@ -73,4 +73,17 @@ public abstract class Environment {
      * Internal version of {@link #getChunkAtAsync(World, int, int, boolean)}.
      */
     public abstract CompletableFuture<Chunk> getChunkAtAsyncInternal(World world, int x, int z, boolean gen);
+
+    /**
+     * Gets the average duration of recent server ticks.
+     * @return The average tick duration in milliseconds, or NaN if the server does not provide it.
+     */
+    public static double getAverageTickTime() {
+        return INSTANCE.getAverageTickTimeInternal();
+    }
+
+    /**
+     * Internal version of {@link #getAverageTickTime()}.
+     */
+    public abstract double getAverageTickTimeInternal();
 }
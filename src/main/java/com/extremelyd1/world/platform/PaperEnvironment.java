@@ -1,5 +1,6 @@
 package com.extremelyd1.world.platform;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.World;
 
@@ -23,4 +24,12 @@ public class PaperEnvironment extends Environment {
     public CompletableFuture<Chunk> getChunkAtAsyncInternal(World world, int x, int z, boolean gen) {
         return world.getChunkAtAsync(x, z, gen);
     }
+
+    /**
+     * Implementation for Paper of {@link Environment#getAverageTickTime()}.
+     */
+    @Override
+    public double getAverageTickTimeInternal() {
+        return Bukkit.getAverageTickTime();
+    }
 }
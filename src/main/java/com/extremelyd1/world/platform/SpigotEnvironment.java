@@ -23,4 +23,12 @@ public class SpigotEnvironment extends Environment {
     public CompletableFuture<Chunk> getChunkAtAsyncInternal(World world, int x, int z, boolean gen) {
         return CompletableFuture.completedFuture(world.getChunkAt(x, z, gen));
     }
+
+    /**
+     * Implementation for Spigot of {@link Environment#getAverageTickTime()}, which is not provided by Spigot.
+     */
+    @Override
+    public double getAverageTickTimeInternal() {
+        return Double.NaN;
+    }
 }